@@ -32,7 +32,7 @@ if (!file(".git").exists()) {
 }
 
 rootProject.name = "trlcore"
-for (name in listOf("trlcore-api", "trlcore-server")) {
+for (name in listOf("trlcore-api", "trlcore-server", "trlcore-benchmarks")) {
     val projName = name.lowercase(Locale.ENGLISH)
     include(projName)
     findProject(":$projName")!!.projectDir = file(name)
@@ -0,0 +1,85 @@
+package org.purpurmc.purpur.event;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Called when the server moves to another stage of the degradation ladder, either shedding more load because
+ * ticks take too long, or recovering once they are fast enough again.
+ * <p>
+ * Stage 0 means no load is shed. Cancelling keeps the current stage, the transition is attempted again once the
+ * tick time stays past the threshold for another full delay.
+ */
+@NullMarked
+public class DegradationStageChangeEvent extends Event implements Cancellable {
+    private static final HandlerList handlers = new HandlerList();
+    private final int oldStage;
+    private final int newStage;
+    private final double mspt;
+    private boolean cancelled;
+
+    @ApiStatus.Internal
+    public DegradationStageChangeEvent(int oldStage, int newStage, double mspt) {
+        this.oldStage = oldStage;
+        this.newStage = newStage;
+        this.mspt = mspt;
+    }
+
+    /**
+     * Gets the stage the server is currently in
+     *
+     * @return The old stage, 0 if no load was shed
+     */
+    public int getOldStage() {
+        return oldStage;
+    }
+
+    /**
+     * Gets the stage the server is moving to
+     *
+     * @return The new stage, 0 if the server fully recovered
+     */
+    public int getNewStage() {
+        return newStage;
+    }
+
+    /**
+     * Whether the server is shedding more load
+     *
+     * @return True if escalating, false if recovering
+     */
+    public boolean isEscalating() {
+        return newStage > oldStage;
+    }
+
+    /**
+     * Gets the average tick time that caused the transition
+     *
+     * @return Average milliseconds per tick
+     */
+    public double getMspt() {
+        return mspt;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancel) {
+        this.cancelled = cancel;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
@@ -12,12 +12,15 @@ import org.jspecify.annotations.NullMarked;
 
 /**
  * Triggered when a ridable mob moves with a rider
+ * <p>
+ * The server reuses the event and its locations for the next move of the same mob, so copy anything you need to
+ * keep after the event is handled.
  */
 @NullMarked
 public class RidableMoveEvent extends EntityEvent implements Cancellable {
     private static final HandlerList handlers = new HandlerList();
     private boolean canceled;
-    private final Player rider;
+    private Player rider;
     private Location from;
     private Location to;
 
@@ -29,6 +32,14 @@ public class RidableMoveEvent extends EntityEvent implements Cancellable {
         this.to = to;
     }
 
+    @ApiStatus.Internal
+    public void reset(Player rider, Location from, Location to) {
+        this.canceled = false;
+        this.rider = rider;
+        this.from = from;
+        this.to = to;
+    }
+
     @Override
     public Mob getEntity() {
         return (Mob) entity;
@@ -0,0 +1,179 @@
+package org.purpurmc.purpur.message;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A MiniMessage string parsed once, with named placeholder slots that are filled in when rendering.
+ * <p>
+ * Templates without any of their slots in the text are parsed into a single component that is returned on every
+ * render. Templates with slots are parsed once with a marker in place of every slot, and rendering swaps the
+ * markers for the given values, keeping the style around them. Templates whose slots sit inside tags that
+ * transform their content, like gradients or hover text, can't be prepared this way and are parsed on every render.
+ */
+@NullMarked
+public final class MessageTemplate {
+    private static final String MARKER = "purpur.message.slot.";
+    private static final String[] TRANSFORMING_TAGS = {"<gradient", "<rainbow", "<transition", "<hover", "<insert", "<click"};
+
+    private final String raw;
+    private final List<String> slots;
+    private final @Nullable Component component;
+    private final boolean isStatic;
+
+    private MessageTemplate(String raw, List<String> slots, @Nullable Component component, boolean isStatic) {
+        this.raw = raw;
+        this.slots = slots;
+        this.component = component;
+        this.isStatic = isStatic;
+    }
+
+    /**
+     * Parses a MiniMessage string into a template
+     * @param raw The MiniMessage string
+     * @param slots The names of the placeholders, in the order their values are passed when rendering
+     * @return The template
+     */
+    public static MessageTemplate compile(String raw, String... slots) {
+        List<String> slotList = List.of(slots);
+        int occurrences = 0;
+        for (String slot : slotList) {
+            occurrences += count(raw, "<" + slot + ">");
+        }
+        if (occurrences == 0) {
+            return new MessageTemplate(raw, slotList, MiniMessage.miniMessage().deserialize(raw), true);
+        }
+        String lower = raw.toLowerCase(Locale.ROOT);
+        for (String tag : TRANSFORMING_TAGS) {
+            if (lower.contains(tag)) {
+                return new MessageTemplate(raw, slotList, null, false);
+            }
+        }
+        TagResolver.Builder markers = TagResolver.builder();
+        for (int i = 0; i < slots.length; i++) {
+            markers.resolver(Placeholder.component(slots[i], Component.translatable(MARKER + i)));
+        }
+        Component component = MiniMessage.miniMessage().deserialize(raw, markers.build());
+        if (countMarkers(component) != occurrences) {
+            // a slot ended up somewhere rendering can't reach
+            return new MessageTemplate(raw, slotList, null, false);
+        }
+        return new MessageTemplate(raw, slotList, component, false);
+    }
+
+    /**
+     * Returns the MiniMessage string this template was parsed from
+     */
+    public String raw() {
+        return this.raw;
+    }
+
+    /**
+     * Returns the names of the placeholder slots of this template
+     */
+    public List<String> slots() {
+        return this.slots;
+    }
+
+    /**
+     * Checks if the text of this template uses none of its slots, in which case every render returns the same component
+     * @return Whether this template renders to a constant component
+     */
+    public boolean isStatic() {
+        return this.isStatic;
+    }
+
+    Component staticComponent() {
+        if (!this.isStatic || this.component == null) {
+            throw new IllegalStateException("Template uses its slots");
+        }
+        return this.component;
+    }
+
+    /**
+     * Renders this template
+     * @param values The values of the slots, in the order the slots were declared
+     * @return The rendered component
+     * @throws IllegalArgumentException If the number of values doesn't match the number of slots
+     */
+    public Component render(ComponentLike... values) {
+        if (values.length != this.slots.size()) {
+            throw new IllegalArgumentException("Expected " + this.slots.size() + " values for " + this.slots + " but got " + values.length);
+        }
+        Component component = this.component;
+        if (component == null) {
+            TagResolver.Builder resolver = TagResolver.builder();
+            for (int i = 0; i < values.length; i++) {
+                resolver.resolver(Placeholder.component(this.slots.get(i), values[i]));
+            }
+            return MiniMessage.miniMessage().deserialize(this.raw, resolver.build());
+        }
+        if (this.isStatic) {
+            return component;
+        }
+        Component[] components = new Component[values.length];
+        for (int i = 0; i < values.length; i++) {
+            components[i] = values[i].asComponent();
+        }
+        return replace(component, components);
+    }
+
+    /**
+     * Renders this template with plain text values. The values are inserted as they are, without parsing tags in them
+     * @param values The values of the slots, in the order the slots were declared
+     * @return The rendered component
+     * @throws IllegalArgumentException If the number of values doesn't match the number of slots
+     */
+    public Component renderText(String... values) {
+        return render(Arrays.stream(values).map(Component::text).toArray(ComponentLike[]::new));
+    }
+
+    private static Component replace(Component component, Component[] values) {
+        if (component instanceof TranslatableComponent translatable && translatable.key().startsWith(MARKER)) {
+            Component value = values[Integer.parseInt(translatable.key().substring(MARKER.length()))];
+            return value.applyFallbackStyle(translatable.style());
+        }
+        List<Component> children = component.children();
+        List<Component> replaced = null;
+        for (int i = 0; i < children.size(); i++) {
+            Component child = children.get(i);
+            Component newChild = replace(child, values);
+            if (newChild != child && replaced == null) {
+                replaced = new ArrayList<>(children);
+            }
+            if (replaced != null) {
+                replaced.set(i, newChild);
+            }
+        }
+        return replaced == null ? component : component.children(replaced);
+    }
+
+    private static int countMarkers(Component component) {
+        if (component instanceof TranslatableComponent translatable && translatable.key().startsWith(MARKER)) {
+            return 1;
+        }
+        int count = 0;
+        for (Component child : component.children()) {
+            count += countMarkers(child);
+        }
+        return count;
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + part.length())) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,80 @@
+package org.purpurmc.purpur.message;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Registry of named {@link MessageTemplate}s. The server registers its configurable messages under the
+ * {@code purpur:} prefix and replaces them when the config is reloaded. Plugins can register their own templates
+ * the same way, and should re-register them when their own config is reloaded.
+ */
+@NullMarked
+public final class MessageTemplates {
+    private static final Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+    private static final Map<String, Component> staticComponents = new ConcurrentHashMap<>();
+
+    private MessageTemplates() {
+    }
+
+    /**
+     * Parses and registers a template, replacing any template registered under the same key
+     * @param key The key of the template
+     * @param raw The MiniMessage string
+     * @param slots The names of the placeholders, in the order their values are passed when rendering
+     * @return The registered template
+     */
+    public static MessageTemplate register(String key, String raw, String... slots) {
+        MessageTemplate template = MessageTemplate.compile(raw, slots);
+        MessageTemplate old = templates.put(key, template);
+        if (old != null && old.isStatic()) {
+            staticComponents.remove(old.raw());
+        }
+        if (template.isStatic()) {
+            staticComponents.put(raw, template.staticComponent());
+        }
+        return template;
+    }
+
+    /**
+     * Removes a template
+     * @param key The key of the template
+     */
+    public static void unregister(String key) {
+        MessageTemplate old = templates.remove(key);
+        if (old != null && old.isStatic()) {
+            staticComponents.remove(old.raw());
+        }
+    }
+
+    /**
+     * Returns the template registered under a key
+     * @param key The key of the template
+     * @return The template, or null if there is none
+     */
+    public static @Nullable MessageTemplate get(String key) {
+        return templates.get(key);
+    }
+
+    /**
+     * Returns the keys of all registered templates
+     */
+    public static Set<String> keys() {
+        return Set.copyOf(templates.keySet());
+    }
+
+    /**
+     * Parses a MiniMessage string without placeholders. Strings of registered templates that don't use their slots
+     * are not parsed again, anything else is parsed as usual.
+     * @param raw The MiniMessage string
+     * @return The parsed component
+     */
+    public static Component deserialize(String raw) {
+        Component component = staticComponents.get(raw);
+        return component != null ? component : MiniMessage.miniMessage().deserialize(raw);
+    }
+}
@@ -0,0 +1,55 @@
+import groovy.json.JsonSlurper
+
+plugins {
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+dependencies {
+    jmh(project(":trlcore-server"))
+    jmh("org.mockito:mockito-core:5.14.1")
+}
+
+// ./gradlew :trlcore-benchmarks:jmh [-PjmhIncludes=<regex>]
+jmh {
+    jmhVersion = "1.37"
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(emptyList())
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    jvmArgsAppend = listOf("-Xms1G", "-Xmx1G")
+}
+
+// ./gradlew :trlcore-benchmarks:jmhCompare -PjmhBaseline=<results.json of the last release> [-PjmhThreshold=0.10]
+tasks.register("jmhCompare") {
+    group = "benchmark"
+    description = "Fails if a benchmark regressed by more than the threshold compared to a baseline result file."
+    val results = jmh.resultsFile
+    val baseline = providers.gradleProperty("jmhBaseline")
+    val threshold = providers.gradleProperty("jmhThreshold").map(String::toDouble).orElse(0.10)
+    doLast {
+        fun read(file: File): Map<String, Map<String, Any>> {
+            @Suppress("UNCHECKED_CAST")
+            val runs = JsonSlurper().parse(file) as List<Map<String, Any>>
+            return runs.associateBy { run -> run["benchmark"].toString() + (run["params"] ?: "") }
+        }
+
+        val before = read(file(baseline.get()))
+        val after = read(results.get().asFile)
+        val regressions = mutableListOf<String>()
+        for ((key, run) in after) {
+            val old = before[key] ?: continue
+            val oldScore = ((old["primaryMetric"] as Map<*, *>)["score"] as Number).toDouble()
+            val newScore = ((run["primaryMetric"] as Map<*, *>)["score"] as Number).toDouble()
+            // throughput should not go down, everything else is a time and should not go up
+            val change = if (run["mode"] == "thrpt") (oldScore - newScore) / oldScore else (newScore - oldScore) / oldScore
+            if (change > threshold.get()) {
+                regressions += "$key: $oldScore -> $newScore (${"%.1f".format(change * 100)}% worse)"
+            }
+        }
+        if (regressions.isNotEmpty()) {
+            throw GradleException("Benchmark regressions:\n" + regressions.joinToString("\n"))
+        }
+    }
+}
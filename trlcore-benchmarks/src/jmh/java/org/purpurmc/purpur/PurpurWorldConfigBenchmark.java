@@ -0,0 +1,32 @@
+package org.purpurmc.purpur;
+
+import java.util.concurrent.TimeUnit;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+
+/**
+ * Reading the settings of one world, which every world load and {@code /purpur reload} does per world.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PurpurWorldConfigBenchmark {
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        // write the defaults once, so the benchmark measures reading an existing config
+        new PurpurWorldConfig("world", World.Environment.NORMAL);
+    }
+
+    @Benchmark
+    public PurpurWorldConfig existingWorld() {
+        return new PurpurWorldConfig("world", World.Environment.NORMAL);
+    }
+}
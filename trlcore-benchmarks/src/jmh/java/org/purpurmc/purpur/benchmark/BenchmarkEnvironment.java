@@ -0,0 +1,46 @@
+package org.purpurmc.purpur.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.logging.Logger;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.mockito.Mockito;
+import org.purpurmc.purpur.PurpurConfig;
+
+/**
+ * Bootstraps the vanilla registries, a stub Bukkit server and a default purpur.yml once per fork, so benchmarks
+ * can use config values and registry entries without starting a server.
+ */
+public final class BenchmarkEnvironment {
+    private static boolean initialized;
+
+    private BenchmarkEnvironment() {
+    }
+
+    public static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        Server server = Mockito.mock(Server.class, Mockito.withSettings().stubOnly());
+        Mockito.when(server.getLogger()).thenReturn(Logger.getLogger("TRLCore Benchmarks"));
+        Bukkit.setServer(server);
+
+        try {
+            File config = Files.createTempFile("purpur", ".yml").toFile();
+            config.deleteOnExit();
+            PurpurConfig.init(config);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.purpurmc.purpur.controller;
+
+import java.util.concurrent.TimeUnit;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import net.minecraft.world.entity.player.Input;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+
+/**
+ * One tick of a ridden mob's WASD controllers. The mob, rider and level are stubs, so the scores include the
+ * stub calls and are only meant to be compared between builds, not read as absolute costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ControllerWASDBenchmark {
+    @Param({"none", "forward", "forward_left", "back_right"})
+    public String input;
+
+    private MoveControllerWASD moveController;
+    private LookControllerWASD lookController;
+    private ServerPlayer rider;
+    private float yaw;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        Input input = switch (this.input) {
+            case "forward" -> new Input(true, false, false, false, false, false, false);
+            case "forward_left" -> new Input(true, false, true, false, false, false, false);
+            case "back_right" -> new Input(false, true, false, true, false, false, false);
+            default -> Input.EMPTY;
+        };
+        this.rider = Mockito.mock(ServerPlayer.class, Mockito.withSettings().stubOnly());
+        Mockito.when(this.rider.getLastClientInput()).thenReturn(input);
+
+        Mob mob = Mockito.mock(Mob.class, Mockito.withSettings().stubOnly());
+        ServerLevel level = Mockito.mock(ServerLevel.class, Mockito.withSettings().stubOnly());
+        ServerChunkCache chunkSource = Mockito.mock(ServerChunkCache.class, Mockito.withSettings().stubOnly());
+        Mockito.when(level.getChunkSource()).thenReturn(chunkSource);
+        Mockito.when(mob.level()).thenReturn(level);
+        Mockito.when(mob.getAttributeValue(Attributes.MOVEMENT_SPEED)).thenReturn(0.25D);
+        this.lookController = new LookControllerWASD(mob);
+        Mockito.when(mob.getLookControl()).thenReturn(this.lookController);
+        this.moveController = new MoveControllerWASD(mob);
+    }
+
+    @Benchmark
+    public MoveControllerWASD move() {
+        this.moveController.purpurTick(this.rider);
+        return this.moveController;
+    }
+
+    @Benchmark
+    public LookControllerWASD look() {
+        this.lookController.setYawPitch(this.yaw += 7.5F, 15.0F);
+        return this.lookController;
+    }
+}
@@ -0,0 +1,65 @@
+package org.purpurmc.purpur.entity.ai;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.world.entity.ai.goal.Goal;
+import net.minecraft.world.entity.ai.goal.GoalSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+
+/**
+ * One server tick of 2000 active villager-like mobs spread up to 128 blocks around a player, each computing its
+ * dynamic activation priority and re-evaluating its goals when due, with dynamic activation of brain on and off.
+ * Uses the default start-distance, max-tick-freq and activation-dist-mod.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DynamicActivationBenchmark {
+    private static final int MOBS = 2000;
+    private static final int GOALS = 10;
+    private static final double MAX_DISTANCE = 128.0D;
+    private static final int START_DISTANCE_SQUARED = 12 * 12;
+    private static final int MAX_TICK_FREQ = 20;
+    private static final int ACTIVATION_DIST_MOD = 8;
+
+    @Param({"false", "true"})
+    public boolean dab;
+
+    private final GoalSelector[] selectors = new GoalSelector[MOBS];
+    private final double[] distancesSqr = new double[MOBS];
+    private int tick;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        Random random = new Random(42);
+        for (int i = 0; i < MOBS; i++) {
+            this.selectors[i] = IdleGoal.selector(GOALS, EnumSet.of(Goal.Flag.MOVE, Goal.Flag.LOOK));
+            double distance = random.nextDouble() * MAX_DISTANCE;
+            this.distancesSqr[i] = distance * distance;
+        }
+    }
+
+    @Benchmark
+    public int serverTick() {
+        int tick = ++this.tick;
+        int ticked = 0;
+        for (int id = 0; id < MOBS; id++) {
+            int priority = this.dab ? DynamicActivation.priority(this.distancesSqr[id], START_DISTANCE_SQUARED, ACTIVATION_DIST_MOD, MAX_TICK_FREQ) : 1;
+            if (DynamicActivation.shouldTick(priority, tick, id)) {
+                this.selectors[id].tick();
+                ticked++;
+            }
+        }
+        return ticked;
+    }
+}
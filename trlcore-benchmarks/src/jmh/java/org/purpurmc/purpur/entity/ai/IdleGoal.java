@@ -0,0 +1,44 @@
+package org.purpurmc.purpur.entity.ai;
+
+import java.util.EnumSet;
+import net.minecraft.world.entity.ai.goal.Goal;
+import net.minecraft.world.entity.ai.goal.GoalSelector;
+
+/**
+ * A goal that looks for something within range among far away candidates, so it never starts, like a mob
+ * without a target scanning for one.
+ */
+final class IdleGoal extends Goal {
+    private static final double[] CANDIDATES = new double[16 * 3];
+
+    static {
+        for (int i = 0; i < CANDIDATES.length; i++) {
+            CANDIDATES[i] = 64.0D + i * 13.0D;
+        }
+    }
+
+    IdleGoal(EnumSet<Goal.Flag> flags) {
+        this.setFlags(flags);
+    }
+
+    static GoalSelector selector(int goals, EnumSet<Goal.Flag> flags) {
+        GoalSelector selector = new GoalSelector();
+        for (int i = 0; i < goals; i++) {
+            selector.addGoal(i, new IdleGoal(flags));
+        }
+        return selector;
+    }
+
+    @Override
+    public boolean canUse() {
+        for (int i = 0; i < CANDIDATES.length; i += 3) {
+            double x = CANDIDATES[i];
+            double y = CANDIDATES[i + 1];
+            double z = CANDIDATES[i + 2];
+            if (x * x + y * y + z * z < 16.0D * 16.0D) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+package org.purpurmc.purpur.entity.ai;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.world.entity.ai.goal.Goal;
+import net.minecraft.world.entity.ai.goal.GoalSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+
+/**
+ * One server tick of 5000 idle zombies outside the activation range, each ticking its goal and target selector
+ * the way Mob#inactiveTick does, with and without the inactive goal selector throttle.
+ * The goals never start, like a zombie without a target scanning for one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InactiveGoalThrottleBenchmark {
+    private static final int ZOMBIES = 5000;
+    // a zombie registers 8 goals and 5 target goals
+    private static final int GOALS = 8;
+    private static final int TARGET_GOALS = 5;
+
+    @Param({"false", "true"})
+    public boolean throttle;
+
+    @Param({"20"})
+    public int interval;
+
+    private final GoalSelector[] goalSelectors = new GoalSelector[ZOMBIES];
+    private final GoalSelector[] targetSelectors = new GoalSelector[ZOMBIES];
+    private int tick;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        for (int i = 0; i < ZOMBIES; i++) {
+            this.goalSelectors[i] = IdleGoal.selector(GOALS, EnumSet.of(Goal.Flag.MOVE, Goal.Flag.LOOK));
+            this.targetSelectors[i] = IdleGoal.selector(TARGET_GOALS, EnumSet.of(Goal.Flag.TARGET));
+        }
+    }
+
+    @Benchmark
+    public int serverTick() {
+        int tick = ++this.tick;
+        int ticked = 0;
+        for (int id = 0; id < ZOMBIES; id++) {
+            GoalSelector goalSelector = this.goalSelectors[id];
+            if (InactiveGoalThrottle.shouldTick(id, goalSelector.inactiveTick(), this.throttle, this.interval, 1, tick)) {
+                goalSelector.tick();
+                ticked++;
+            }
+            GoalSelector targetSelector = this.targetSelectors[id];
+            if (InactiveGoalThrottle.shouldTick(id, targetSelector.inactiveTick(), this.throttle, this.interval, 1, tick)) {
+                targetSelector.tick();
+                ticked++;
+            }
+        }
+        return ticked;
+    }
+}
@@ -0,0 +1,198 @@
+package org.purpurmc.purpur.entity.ai;
+
+import java.lang.reflect.Field;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.PathNavigationRegion;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.pathfinder.Path;
+import net.minecraft.world.level.pathfinder.PathFinder;
+import net.minecraft.world.level.pathfinder.PathType;
+import net.minecraft.world.level.pathfinder.WalkNodeEvaluator;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+
+/**
+ * Whole path searches of mobs crossing the same mob farm, with the path types going through the per section cache
+ * and computed from the block states every time. The region is fixed and reads blocks straight from an array, so
+ * the difference is the cost of the path type checks the cache saves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFinderCacheBenchmark {
+    private static final int SIZE = 64;
+    private static final int HEIGHT = 16;
+    private static final int FLOOR = 4;
+    private static final float FOLLOW_RANGE = 32.0F;
+    private static final int SEARCHES = 256;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private final BlockState[] states = new BlockState[SIZE * HEIGHT * SIZE];
+    private ServerLevel serverLevel;
+    private PathNavigationRegion region;
+    private Mob[] mobs;
+    private BlockPos[] targets;
+    private PathFinder pathFinder;
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        Random random = new Random(42);
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                int roll = random.nextInt(100);
+                for (int y = 0; y < HEIGHT; y++) {
+                    BlockState state;
+                    if (y < FLOOR) {
+                        state = Blocks.STONE.defaultBlockState();
+                    } else if (y == FLOOR && roll < 8) {
+                        state = Blocks.OAK_FENCE.defaultBlockState();
+                    } else if (y <= FLOOR + 1 && roll < 16) {
+                        state = Blocks.STONE.defaultBlockState();
+                    } else if (y == FLOOR - 1 && roll < 22) {
+                        state = Blocks.WATER.defaultBlockState();
+                    } else if (y == FLOOR && roll < 26) {
+                        state = Blocks.RAIL.defaultBlockState();
+                    } else {
+                        state = Blocks.AIR.defaultBlockState();
+                    }
+                    this.states[(y * SIZE + z) * SIZE + x] = state;
+                }
+            }
+        }
+
+        this.serverLevel = Mockito.mock(ServerLevel.class, Mockito.withSettings().stubOnly());
+        Mockito.when(this.serverLevel.getMinY()).thenReturn(0);
+        Mockito.when(this.serverLevel.getHeight()).thenReturn(HEIGHT);
+        Mockito.when(this.serverLevel.getWorldBorder()).thenReturn(new WorldBorder());
+        net.minecraft.world.level.Level plainLevel = Mockito.mock(net.minecraft.world.level.Level.class, Mockito.withSettings().stubOnly());
+        Mockito.when(plainLevel.getMinY()).thenReturn(0);
+        Mockito.when(plainLevel.getHeight()).thenReturn(HEIGHT);
+        Mockito.when(plainLevel.getWorldBorder()).thenReturn(new WorldBorder());
+        this.region = new ArrayRegion(this.serverLevel);
+
+        // the path types are looked up through the level of the mob, only a server level has the cache
+        net.minecraft.world.level.Level mobLevel = this.cache ? this.serverLevel : plainLevel;
+        this.mobs = new Mob[SEARCHES];
+        this.targets = new BlockPos[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            this.mobs[i] = mob(mobLevel, this.open(random));
+            this.targets[i] = this.open(random);
+        }
+        this.pathFinder = new PathFinder(new WalkNodeEvaluator(), (int) (FOLLOW_RANGE * 16.0F));
+    }
+
+    // mocks skip the constructor, the level's cache is set up by hand and starts out empty every iteration
+    @Setup(Level.Iteration)
+    public void resetCache() throws ReflectiveOperationException {
+        Field field = ServerLevel.class.getField("pathTypeSections");
+        field.setAccessible(true);
+        field.set(this.serverLevel, new PathTypeSectionCache(() -> 0L));
+    }
+
+    @Benchmark
+    public Path findPath() {
+        int i = this.next++ % SEARCHES;
+        return this.pathFinder.findPath(this.region, this.mobs[i], Set.of(this.targets[i]), FOLLOW_RANGE, 1, 1.0F);
+    }
+
+    private BlockPos open(Random random) {
+        while (true) {
+            int x = random.nextInt(SIZE);
+            int z = random.nextInt(SIZE);
+            if (this.state(x, FLOOR, z).isAir() && this.state(x, FLOOR + 1, z).isAir()) {
+                return new BlockPos(x, FLOOR, z);
+            }
+        }
+    }
+
+    private BlockState state(int x, int y, int z) {
+        if (x < 0 || x >= SIZE || z < 0 || z >= SIZE || y < 0 || y >= HEIGHT) {
+            return Blocks.AIR.defaultBlockState();
+        }
+        return this.states[(y * SIZE + z) * SIZE + x];
+    }
+
+    private static Mob mob(net.minecraft.world.level.Level level, BlockPos start) {
+        Mob mob = Mockito.mock(Mob.class, Mockito.withSettings().stubOnly());
+        Vec3 position = Vec3.atBottomCenterOf(start);
+        Mockito.when(mob.level()).thenReturn(level);
+        Mockito.when(mob.position()).thenReturn(position);
+        Mockito.when(mob.getX()).thenReturn(position.x);
+        Mockito.when(mob.getY()).thenReturn(position.y);
+        Mockito.when(mob.getZ()).thenReturn(position.z);
+        Mockito.when(mob.getBlockX()).thenReturn(start.getX());
+        Mockito.when(mob.getBlockY()).thenReturn(start.getY());
+        Mockito.when(mob.getBlockZ()).thenReturn(start.getZ());
+        Mockito.when(mob.blockPosition()).thenReturn(start);
+        Mockito.when(mob.getBbWidth()).thenReturn(0.6F);
+        Mockito.when(mob.getBbHeight()).thenReturn(1.95F);
+        Mockito.when(mob.getBoundingBox()).thenReturn(AABB.ofSize(position.add(0.0, 0.975, 0.0), 0.6, 1.95, 0.6));
+        Mockito.when(mob.onGround()).thenReturn(true);
+        Mockito.when(mob.maxUpStep()).thenReturn(0.6F);
+        Mockito.when(mob.getMaxFallDistance()).thenReturn(3);
+        Mockito.when(mob.getMainHandItem()).thenReturn(ItemStack.EMPTY);
+        Mockito.when(mob.getPathfindingMalus(Mockito.any())).thenAnswer(invocation -> invocation.<PathType>getArgument(0).getMalus());
+        return mob;
+    }
+
+    private final class ArrayRegion extends PathNavigationRegion {
+        private ArrayRegion(net.minecraft.world.level.Level level) {
+            super(level, new BlockPos(0, 0, 0), new BlockPos(SIZE - 1, HEIGHT - 1, SIZE - 1));
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos pos) {
+            return PathFinderCacheBenchmark.this.state(pos.getX(), pos.getY(), pos.getZ());
+        }
+
+        @Override
+        public BlockState getBlockStateIfLoaded(BlockPos pos) {
+            return this.getBlockState(pos);
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos pos) {
+            return this.getBlockState(pos).getFluidState();
+        }
+
+        @Override
+        public BlockGetter getChunkForCollisions(int chunkX, int chunkZ) {
+            return this;
+        }
+
+        @Override
+        public int getMinY() {
+            return 0;
+        }
+
+        @Override
+        public int getHeight() {
+            return HEIGHT;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.purpurmc.purpur.entity.ai;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.pathfinder.PathType;
+import net.minecraft.world.level.pathfinder.PathTypeCache;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+
+/**
+ * Path type lookups of many mobs searching paths through the same mob farm, through the level's fixed size position
+ * cache and through the per section cache. The farm is larger than the position cache, like most real ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PathTypeCacheBenchmark {
+    private static final int LOOKUPS = 1024;
+    private static final int HEIGHT = 8;
+
+    @Param({"32", "64"})
+    public int size;
+
+    private BlockGetter level;
+    private BlockPos[] positions;
+    private PathTypeCache positionCache;
+    private PathTypeSectionCache sectionCache;
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        BlockState[] states = new BlockState[this.size * HEIGHT * this.size];
+        for (int x = 0; x < this.size; x++) {
+            for (int z = 0; z < this.size; z++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    BlockState state;
+                    if (y == 0) {
+                        state = Blocks.STONE.defaultBlockState();
+                    } else if (y == 1 && (x & 7) == 0) {
+                        state = Blocks.WATER.defaultBlockState();
+                    } else if (y == 1 && (z & 7) == 0) {
+                        state = Blocks.RAIL.defaultBlockState();
+                    } else if (y == 1 && ((x + z) & 15) == 3) {
+                        state = Blocks.STONECUTTER.defaultBlockState();
+                    } else {
+                        state = Blocks.AIR.defaultBlockState();
+                    }
+                    states[(y * this.size + z) * this.size + x] = state;
+                }
+            }
+        }
+        Answer<BlockState> blockState = invocation -> {
+            BlockPos pos = invocation.getArgument(0);
+            if (pos.getX() < 0 || pos.getX() >= this.size || pos.getZ() < 0 || pos.getZ() >= this.size || pos.getY() < 0 || pos.getY() >= HEIGHT) {
+                return Blocks.AIR.defaultBlockState();
+            }
+            return states[(pos.getY() * this.size + pos.getZ()) * this.size + pos.getX()];
+        };
+        this.level = Mockito.mock(BlockGetter.class, Mockito.withSettings().stubOnly());
+        Mockito.when(this.level.getBlockState(Mockito.any())).thenAnswer(blockState);
+        Mockito.when(this.level.getBlockStateIfLoaded(Mockito.any())).thenAnswer(blockState);
+
+        // mobs walking around the farm floor, each probing the blocks around it
+        Random random = new Random(42);
+        this.positions = new BlockPos[LOOKUPS * 16];
+        for (int i = 0; i < this.positions.length; i++) {
+            this.positions[i] = new BlockPos(random.nextInt(this.size), 1 + random.nextInt(3), random.nextInt(this.size));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCaches() {
+        this.positionCache = new PathTypeCache();
+        this.sectionCache = new PathTypeSectionCache(() -> 0L);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public PathType positionCache() {
+        PathType type = null;
+        for (int i = 0; i < LOOKUPS; i++) {
+            type = this.positionCache.getOrCompute(this.level, this.positions[this.next++ % this.positions.length]);
+        }
+        return type;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public PathType sectionCache() {
+        PathType type = null;
+        for (int i = 0; i < LOOKUPS; i++) {
+            type = this.sectionCache.getOrCompute(this.level, this.positions[this.next++ % this.positions.length]);
+        }
+        return type;
+    }
+}
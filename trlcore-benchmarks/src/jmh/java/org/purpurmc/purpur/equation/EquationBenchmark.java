@@ -0,0 +1,49 @@
+package org.purpurmc.purpur.equation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+
+/**
+ * Compiled config equations against the Rhino fallback they replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EquationBenchmark {
+    @Param({"expLevel * 7", "min(expLevel * expLevel + 6 * expLevel, 100)", "(expTotal - 1) / 5.0 + sqrt(exp)"})
+    public String source;
+
+    private Equation compiled;
+    private Equation rhino;
+    private double level;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        this.compiled = Equation.compile(this.source, "expLevel", "expTotal", "exp");
+        this.rhino = Equation.rhino(this.source, this.compiled);
+    }
+
+    @Benchmark
+    public double compiled() {
+        return this.compiled.evaluate(this.level++ % 30, 250.0D, 0.5D);
+    }
+
+    @Benchmark
+    public double rhino() {
+        return this.rhino.evaluate(this.level++ % 30, 250.0D, 0.5D);
+    }
+
+    @Benchmark
+    public Equation compile() {
+        return Equation.compile(this.source, "expLevel", "expTotal", "exp");
+    }
+}
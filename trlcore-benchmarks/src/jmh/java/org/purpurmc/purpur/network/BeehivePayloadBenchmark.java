@@ -0,0 +1,48 @@
+package org.purpurmc.purpur.network;
+
+import io.netty.buffer.Unpooled;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+import org.purpurmc.purpur.task.BeehiveTask;
+
+/**
+ * The payload round trip done by {@link BeehiveTask} for every beehive a modded client looks at, going through the
+ * same decode and encode calls, with the encode buffer reused like the task does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BeehivePayloadBenchmark {
+    private final FriendlyByteBuf encodeBuffer = new FriendlyByteBuf(Unpooled.buffer(16));
+    private byte[] request;
+    private long pos;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        ServerboundBeehivePayload.STREAM_CODEC.encode(buf, new ServerboundBeehivePayload(new BlockPos(1024, 64, -2048)));
+        this.request = new byte[buf.readableBytes()];
+        buf.readBytes(this.request);
+        this.pos = BlockPos.asLong(1024, 64, -2048);
+    }
+
+    @Benchmark
+    public long decode() {
+        return BeehiveTask.decodeRequest(this.request);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return BeehiveTask.encodeResponse(this.encodeBuffer, this.pos, 3);
+    }
+}
@@ -0,0 +1,64 @@
+package org.purpurmc.purpur.task;
+
+import java.util.concurrent.TimeUnit;
+import net.kyori.adventure.bossbar.BossBar;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.purpurmc.purpur.benchmark.BenchmarkEnvironment;
+
+/**
+ * Rendering one player's boss bar, as done for every player with the bar shown each time a bar task runs.
+ * Players have spread out pings and yaws so per-ping and per-direction rendering is covered.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BossBarTaskBenchmark {
+    private static final int PLAYERS = 64;
+
+    private final Player[] players = new Player[PLAYERS];
+    private BossBar tpsBar;
+    private BossBar ramBar;
+    private BossBar compassBar;
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = Mockito.mock(Player.class, Mockito.withSettings().stubOnly());
+            Mockito.when(player.getPing()).thenReturn(i * 7);
+            Mockito.when(player.getLocation()).thenReturn(new Location(null, 0.0D, 64.0D, 0.0D, i * (720.0F / PLAYERS) - 360.0F, 0.0F));
+            this.players[i] = player;
+        }
+        this.tpsBar = TPSBarTask.instance().createBossBar();
+        this.ramBar = RamBarTask.instance().createBossBar();
+        this.compassBar = CompassTask.instance().createBossBar();
+    }
+
+    @Benchmark
+    public BossBar tpsBar() {
+        TPSBarTask.instance().updateBossBar(this.tpsBar, this.players[this.next++ & (PLAYERS - 1)]);
+        return this.tpsBar;
+    }
+
+    @Benchmark
+    public BossBar ramBar() {
+        RamBarTask.instance().updateBossBar(this.ramBar, this.players[this.next++ & (PLAYERS - 1)]);
+        return this.ramBar;
+    }
+
+    @Benchmark
+    public BossBar compassBar() {
+        CompassTask.instance().updateBossBar(this.compassBar, this.players[this.next++ & (PLAYERS - 1)]);
+        return this.compassBar;
+    }
+}
@@ -0,0 +1,125 @@
+package org.purpurmc.purpur.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The main thread's share of counting mobs for the per player spawn caps once per tick. Synchronously every
+ * entity is added to the players in range. With the async spawn state the main thread only copies the entity
+ * list and hands the per chunk counts of the worker to the players in range.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AsyncSpawnStateBenchmark {
+    private static final int CATEGORIES = 8;
+    private static final int WORLD_CHUNKS = 48;
+    private static final int VIEW_DISTANCE = 4;
+
+    @Param({"5000", "20000"})
+    public int entities;
+
+    @Param({"20"})
+    public int players;
+
+    private long[] entityChunks;
+    private int[] entityCategories;
+    private List<Object> entityList;
+    private List<Object> copy;
+    private int[][] playersByChunk;
+    private int[][] mobCounts;
+    private int[][] baseline;
+    private Long2ObjectMap<int[]> countsByChunk;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        this.entityChunks = new long[this.entities];
+        this.entityCategories = new int[this.entities];
+        this.entityList = new ArrayList<>(this.entities);
+        this.countsByChunk = new Long2ObjectOpenHashMap<>();
+        for (int i = 0; i < this.entities; i++) {
+            this.entityChunks[i] = chunkKey(random.nextInt(WORLD_CHUNKS), random.nextInt(WORLD_CHUNKS));
+            this.entityCategories[i] = random.nextInt(CATEGORIES);
+            this.entityList.add(new Object());
+            // what the worker hands back
+            AsyncSpawnState.count(this.countsByChunk, this.entityChunks[i], this.entityCategories[i], CATEGORIES);
+        }
+
+        int[] playerX = new int[this.players];
+        int[] playerZ = new int[this.players];
+        for (int i = 0; i < this.players; i++) {
+            playerX[i] = random.nextInt(WORLD_CHUNKS);
+            playerZ[i] = random.nextInt(WORLD_CHUNKS);
+        }
+        // stands in for NearbyPlayers, the players in tick view distance of each chunk
+        this.playersByChunk = new int[WORLD_CHUNKS * WORLD_CHUNKS][];
+        for (int x = 0; x < WORLD_CHUNKS; x++) {
+            for (int z = 0; z < WORLD_CHUNKS; z++) {
+                int[] inRange = new int[0];
+                for (int i = 0; i < this.players; i++) {
+                    if (Math.abs(playerX[i] - x) <= VIEW_DISTANCE && Math.abs(playerZ[i] - z) <= VIEW_DISTANCE) {
+                        inRange = Arrays.copyOf(inRange, inRange.length + 1);
+                        inRange[inRange.length - 1] = i;
+                    }
+                }
+                this.playersByChunk[x * WORLD_CHUNKS + z] = inRange;
+            }
+        }
+        this.mobCounts = new int[this.players][CATEGORIES];
+        this.baseline = new int[this.players][CATEGORIES];
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) z << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    private int[] playersInRange(long chunkKey) {
+        return this.playersByChunk[(int) chunkKey * WORLD_CHUNKS + (int) (chunkKey >>> 32)];
+    }
+
+    @Benchmark
+    public int[][] sync() {
+        for (int[] counts : this.mobCounts) {
+            Arrays.fill(counts, 0);
+        }
+        for (int i = 0; i < this.entities; i++) {
+            for (int player : this.playersInRange(this.entityChunks[i])) {
+                this.mobCounts[player][this.entityCategories[i]]++;
+            }
+        }
+        return this.mobCounts;
+    }
+
+    @Benchmark
+    public int[][] async() {
+        // hand the counts of the finished computation to the players
+        for (int i = 0; i < this.players; i++) {
+            AsyncSpawnState.carryOver(this.mobCounts[i], this.baseline[i]);
+        }
+        for (Long2ObjectMap.Entry<int[]> entry : this.countsByChunk.long2ObjectEntrySet()) {
+            for (int player : this.playersInRange(entry.getLongKey())) {
+                AsyncSpawnState.add(this.mobCounts[player], entry.getValue());
+            }
+        }
+        // then remember the counts and copy the entities for the next one
+        for (int i = 0; i < this.players; i++) {
+            System.arraycopy(this.mobCounts[i], 0, this.baseline[i], 0, CATEGORIES);
+        }
+        this.copy = new ArrayList<>(this.entityList);
+        return this.mobCounts;
+    }
+}
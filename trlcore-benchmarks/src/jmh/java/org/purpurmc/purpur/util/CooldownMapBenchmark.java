@@ -0,0 +1,112 @@
+package org.purpurmc.purpur.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The breeding cooldown table in {@code Level} against the Guava cache it replaced. Every operation looks up one
+ * of {@code players} players breeding one of 8 animal types, a put is a successful breed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CooldownMapBenchmark {
+    private static final int ANIMAL_TYPES = 8;
+    private static final long COOLDOWN_TICKS = 20L * 20L;
+
+    @Param({"10", "200"})
+    public int players;
+
+    private UUID[] uuids;
+    private CooldownMap map;
+    private Cache<BreedingCooldownPair, Object> cache;
+    private Class<?>[] animalClasses;
+    private long time;
+    private int next;
+
+    @Setup
+    public void setup() {
+        this.uuids = new UUID[this.players];
+        for (int i = 0; i < this.players; i++) {
+            this.uuids[i] = new UUID(ThreadLocalRandom.current().nextLong(), ThreadLocalRandom.current().nextLong());
+        }
+        this.animalClasses = new Class<?>[] {Integer.class, Long.class, Short.class, Byte.class, Float.class, Double.class, Character.class, Boolean.class};
+        this.map = new CooldownMap();
+        this.cache = CacheBuilder.newBuilder().expireAfterWrite(COOLDOWN_TICKS / 20L, TimeUnit.SECONDS).build();
+        for (int i = 0; i < this.players; i++) {
+            for (int type = 0; type < ANIMAL_TYPES; type += 2) {
+                this.map.put(this.uuids[i], type, COOLDOWN_TICKS, 0L);
+                this.cache.put(new BreedingCooldownPair(this.uuids[i], this.animalClasses[type]), new Object());
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean cooldownMapCheck() {
+        int i = this.next++;
+        return this.map.isCoolingDown(this.uuids[i % this.players], i % ANIMAL_TYPES, this.time);
+    }
+
+    @Benchmark
+    public boolean guavaCacheCheck() {
+        int i = this.next++;
+        return this.cache.getIfPresent(new BreedingCooldownPair(this.uuids[i % this.players], this.animalClasses[i % ANIMAL_TYPES])) != null;
+    }
+
+    @Benchmark
+    public void cooldownMapBreed() {
+        int i = this.next++;
+        long time = this.time++;
+        UUID uuid = this.uuids[i % this.players];
+        int type = i % ANIMAL_TYPES;
+        if (!this.map.isCoolingDown(uuid, type, time)) {
+            this.map.put(uuid, type, time + COOLDOWN_TICKS, time);
+        }
+    }
+
+    @Benchmark
+    public void guavaCacheBreed() {
+        int i = this.next++;
+        UUID uuid = this.uuids[i % this.players];
+        Class<?> type = this.animalClasses[i % ANIMAL_TYPES];
+        if (this.cache.getIfPresent(new BreedingCooldownPair(uuid, type)) == null) {
+            this.cache.put(new BreedingCooldownPair(uuid, type), new Object());
+        }
+    }
+
+    // the key of the old cache, as it was
+    private static final class BreedingCooldownPair {
+        private final UUID playerUUID;
+        private final Class<?> animalType;
+
+        private BreedingCooldownPair(UUID playerUUID, Class<?> animalType) {
+            this.playerUUID = playerUUID;
+            this.animalType = animalType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            BreedingCooldownPair that = (BreedingCooldownPair) o;
+            return playerUUID.equals(that.playerUUID) && animalType.equals(that.animalType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(playerUUID, animalType);
+        }
+    }
+}
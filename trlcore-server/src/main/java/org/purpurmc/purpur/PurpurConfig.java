@@ -2,10 +2,18 @@ package org.purpurmc.purpur;
 
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.text.minimessage.MiniMessage;
@@ -36,7 +44,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
+import org.purpurmc.purpur.message.PurpurMessages;
+import org.purpurmc.purpur.task.CompassTask;
 import org.purpurmc.purpur.task.TPSBarTask;
+import org.purpurmc.purpur.util.DegradationLadder;
 
 @SuppressWarnings("unused")
 public class PurpurConfig {
@@ -51,6 +62,35 @@ public class PurpurConfig {
             + "Docs: https://purpurmc.org/docs \n";
     private static File CONFIG_FILE;
     public static YamlConfiguration config;
+    static final int CONFIG_VERSION = 46;
+
+    // settings are read under the write lock, except for world sections read in parallel, which only read
+    static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+    private static final ScheduledExecutorService SAVE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("Purpur Config Saver")
+        .setDaemon(true)
+        .build());
+    private static final long SAVE_DELAY_MS = 1000L;
+    private static final AtomicBoolean SAVE_QUEUED = new AtomicBoolean();
+    private static final ClassValue<List<Method>> SETTINGS_METHODS = new ClassValue<>() {
+        @Override
+        protected List<Method> computeValue(Class<?> clazz) {
+            List<Method> methods = new ArrayList<>();
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (Modifier.isPrivate(method.getModifiers()) && method.getParameterTypes().length == 0 && method.getReturnType() == Void.TYPE) {
+                    method.setAccessible(true);
+                    methods.add(method);
+                }
+            }
+            return List.copyOf(methods);
+        }
+    };
+    private static long loadNanos;
+    private static long globalSettingsNanos;
+    private static final AtomicLong worldSettingsNanos = new AtomicLong();
+    private static final AtomicInteger worldSections = new AtomicInteger();
+    // the load timings are logged with the first save after a load or reload, once the world sections are read
+    private static final AtomicBoolean loadReportPending = new AtomicBoolean();
 
     private static Map<String, Command> commands;
 
@@ -58,26 +98,39 @@ public class PurpurConfig {
     static boolean verbose;
 
     public static void init(File configFile) {
-        CONFIG_FILE = configFile;
-        config = new YamlConfiguration();
+        // a queued save must not serialize the config while it is being replaced and read
+        LOCK.writeLock().lock();
         try {
-            config.load(CONFIG_FILE);
-        } catch (IOException ignore) {
-        } catch (InvalidConfigurationException ex) {
-            Bukkit.getLogger().log(Level.SEVERE, "Could not load purpur.yml, please correct your syntax errors", ex);
-            throw Throwables.propagate(ex);
+            long start = System.nanoTime();
+            CONFIG_FILE = configFile;
+            config = new YamlConfiguration();
+            try {
+                config.load(CONFIG_FILE);
+            } catch (IOException ignore) {
+            } catch (InvalidConfigurationException ex) {
+                Bukkit.getLogger().log(Level.SEVERE, "Could not load purpur.yml, please correct your syntax errors", ex);
+                throw Throwables.propagate(ex);
+            }
+            loadNanos = System.nanoTime() - start;
+            worldSections.set(0);
+            worldSettingsNanos.set(0);
+            loadReportPending.set(true);
+            config.options().header(HEADER);
+            config.options().copyDefaults(true);
+            verbose = getBoolean("verbose", false);
+
+            commands = new HashMap<>();
+            commands.put("purpur", new PurpurCommand("purpur"));
+
+            version = getInt("config-version", CONFIG_VERSION);
+            set("config-version", CONFIG_VERSION);
+
+            start = System.nanoTime();
+            readConfig(PurpurConfig.class, null);
+            globalSettingsNanos = System.nanoTime() - start;
+        } finally {
+            LOCK.writeLock().unlock();
         }
-        config.options().header(HEADER);
-        config.options().copyDefaults(true);
-        verbose = getBoolean("verbose", false);
-
-        commands = new HashMap<>();
-        commands.put("purpur", new PurpurCommand("purpur"));
-
-        version = getInt("config-version", 46);
-        set("config-version", 46);
-
-        readConfig(PurpurConfig.class, null);
 
         Block.BLOCK_STATE_REGISTRY.forEach(BlockBehaviour.BlockStateBase::initCache);
     }
@@ -99,26 +152,82 @@ public class PurpurConfig {
     }
 
     static void readConfig(Class<?> clazz, Object instance) {
-        for (Method method : clazz.getDeclaredMethods()) {
-            if (Modifier.isPrivate(method.getModifiers())) {
-                if (method.getParameterTypes().length == 0 && method.getReturnType() == Void.TYPE) {
-                    try {
-                        method.setAccessible(true);
-                        method.invoke(instance);
-                    } catch (InvocationTargetException ex) {
-                        throw Throwables.propagate(ex.getCause());
-                    } catch (Exception ex) {
-                        Bukkit.getLogger().log(Level.SEVERE, "Error invoking " + method, ex);
-                    }
+        LOCK.writeLock().lock();
+        try {
+            invokeSettings(clazz, instance);
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+        save();
+    }
+
+    static void invokeSettings(Class<?> clazz, Object instance) {
+        for (Method method : SETTINGS_METHODS.get(clazz)) {
+            try {
+                method.invoke(instance);
+            } catch (InvocationTargetException ex) {
+                throw Throwables.propagate(ex.getCause());
+            } catch (Exception ex) {
+                Bukkit.getLogger().log(Level.SEVERE, "Error invoking " + method, ex);
+            }
+        }
+    }
+
+    static void worldSectionRead(long nanos) {
+        worldSettingsNanos.addAndGet(nanos);
+        worldSections.incrementAndGet();
+    }
+
+    /**
+     * Queues a save of purpur.yml. Saves requested in quick succession, such as one per world while the server
+     * starts, are written to disk only once, off the main thread.
+     */
+    static void save() {
+        if (!SAVE_QUEUED.compareAndSet(false, true)) {
+            return;
+        }
+        SAVE_EXECUTOR.schedule(() -> {
+            LOCK.readLock().lock();
+            try {
+                // flushSave may have written it already
+                if (SAVE_QUEUED.compareAndSet(true, false)) {
+                    write();
                 }
+            } finally {
+                LOCK.readLock().unlock();
             }
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes a queued save of purpur.yml on the calling thread, so it is not lost when the server stops
+     * before the saver thread gets to it.
+     */
+    public static void flushSave() {
+        LOCK.writeLock().lock();
+        try {
+            if (SAVE_QUEUED.compareAndSet(true, false)) {
+                write();
+            }
+        } finally {
+            LOCK.writeLock().unlock();
         }
+    }
 
+    private static void write() {
+        long start = System.nanoTime();
         try {
             config.save(CONFIG_FILE);
         } catch (IOException ex) {
             Bukkit.getLogger().log(Level.SEVERE, "Could not save " + CONFIG_FILE, ex);
+            return;
+        }
+        long saveNanos = System.nanoTime() - start;
+        if (loadReportPending.getAndSet(false)) {
+            Bukkit.getLogger().info(String.format("Loaded purpur.yml: parsed in %.2fms, global settings in %.2fms, %d world sections in %.2fms",
+                loadNanos / 1.0E6D, globalSettingsNanos / 1.0E6D, worldSections.get(), worldSettingsNanos.get() / 1.0E6D));
         }
+        log(String.format("Saved purpur.yml in %.2fms", saveNanos / 1.0E6D));
     }
 
     private static void set(String path, Object val) {
@@ -209,6 +318,7 @@ public class PurpurConfig {
         sleepSkippingNight = getString("settings.messages.sleep-skipping-night", sleepSkippingNight);
         sleepingPlayersPercent = getString("settings.messages.sleeping-players-percent", sleepingPlayersPercent);
         sleepNotPossible = getString("settings.messages.sleep-not-possible", sleepNotPossible);
+        PurpurMessages.rebuild();
     }
 
     public static String deathMsgRunWithScissors = "<player> slipped and fell on their shears";
@@ -240,6 +350,50 @@ public class PurpurConfig {
         laggingThreshold = getDouble("settings.lagging-threshold", laggingThreshold);
     }
 
+    public static boolean metricsEnabled = false;
+    public static String metricsBindAddress = "127.0.0.1";
+    public static int metricsPort = 9225;
+    public static double metricsTickBudget = 50.0D;
+    private static void metricsSettings() {
+        metricsEnabled = getBoolean("settings.metrics.enabled", metricsEnabled);
+        metricsBindAddress = getString("settings.metrics.bind-address", metricsBindAddress);
+        metricsPort = getInt("settings.metrics.port", metricsPort);
+        metricsTickBudget = Math.max(0.0D, getDouble("settings.metrics.tick-budget-mspt", metricsTickBudget));
+    }
+
+    public static boolean degradationEnabled = false;
+    public static int degradationEscalateTicks = 100;
+    public static int degradationRecoverTicks = 600;
+    public static double degradationRecoveryMargin = 5.0D;
+    public static List<DegradationLadder.Stage> degradationStages = List.of();
+    private static void degradationSettings() {
+        degradationEnabled = getBoolean("settings.degradation.enabled", degradationEnabled);
+        degradationEscalateTicks = Math.max(1, getInt("settings.degradation.escalate-after-ticks", degradationEscalateTicks));
+        degradationRecoverTicks = Math.max(1, getInt("settings.degradation.recover-after-ticks", degradationRecoverTicks));
+        degradationRecoveryMargin = Math.max(0.0D, getDouble("settings.degradation.recovery-margin-mspt", degradationRecoveryMargin));
+        List<DegradationLadder.Stage> stages = new ArrayList<>();
+        getMap("settings.degradation.stages", Map.ofEntries(
+                Map.entry("1", Map.of("mspt", 40.0D, "activation-range-multiplier", 0.75D, "spawn-cap-multiplier", 0.75D, "inactive-tick-interval-multiplier", 1, "cosmetic-interval-multiplier", 2, "pause-boss-bars", false)),
+                Map.entry("2", Map.of("mspt", 45.0D, "activation-range-multiplier", 0.5D, "spawn-cap-multiplier", 0.5D, "inactive-tick-interval-multiplier", 2, "cosmetic-interval-multiplier", 4, "pause-boss-bars", false)),
+                Map.entry("3", Map.of("mspt", 50.0D, "activation-range-multiplier", 0.5D, "spawn-cap-multiplier", 0.25D, "inactive-tick-interval-multiplier", 4, "cosmetic-interval-multiplier", 4, "pause-boss-bars", true))
+        )).forEach((key, value) -> {
+            if (!(value instanceof Map<?, ?> map) || !(map.get("mspt") instanceof Number mspt)) {
+                log(Level.SEVERE, "Invalid stage for `settings.degradation.stages." + key + "`: " + value + ", expected a map with at least `mspt`.");
+                return;
+            }
+            stages.add(new DegradationLadder.Stage(
+                    mspt.doubleValue(),
+                    map.get("activation-range-multiplier") instanceof Number range ? Math.max(0.0D, range.doubleValue()) : 1.0D,
+                    map.get("spawn-cap-multiplier") instanceof Number spawnCap ? Math.max(0.0D, spawnCap.doubleValue()) : 1.0D,
+                    map.get("inactive-tick-interval-multiplier") instanceof Number inactive ? Math.max(1, inactive.intValue()) : 1,
+                    map.get("cosmetic-interval-multiplier") instanceof Number cosmetic ? Math.max(1, cosmetic.intValue()) : 1,
+                    map.get("pause-boss-bars") instanceof Boolean pause && pause
+            ));
+        });
+        stages.sort(java.util.Comparator.comparingDouble(DegradationLadder.Stage::mspt));
+        degradationStages = List.copyOf(stages);
+    }
+
     public static boolean useAlternateKeepAlive = false;
     private static void useAlternateKeepAlive() {
         useAlternateKeepAlive = getBoolean("settings.use-alternate-keepalive", useAlternateKeepAlive);
@@ -308,6 +462,7 @@ public class PurpurConfig {
         commandTPSBarTickInterval = getInt("settings.command.tpsbar.tick-interval", commandTPSBarTickInterval);
 
         commandCompassBarTitle = getString("settings.command.compass.title", commandCompassBarTitle);
+        CompassTask.buildTitles(commandCompassBarTitle);
         commandCompassBarProgressOverlay = BossBar.Overlay.valueOf(getString("settings.command.compass.overlay", commandCompassBarProgressOverlay.name()));
         commandCompassBarProgressColor = BossBar.Color.valueOf(getString("settings.command.compass.progress-color", commandCompassBarProgressColor.name()));
         commandCompassBarProgressPercent = (float) getDouble("settings.command.compass.percent", commandCompassBarProgressPercent);
@@ -473,8 +628,30 @@ public class PurpurConfig {
     }
 
     public static boolean beeCountPayload = false;
+    public static double beeCountPayloadRequestsPerSecond = 10.0D;
+    public static int beeCountPayloadBurst = 20;
+    public static boolean beeCountPayloadPushChanges = true;
     private static void beeCountPayload() {
         beeCountPayload = getBoolean("settings.bee-count-payload", beeCountPayload);
+        beeCountPayloadRequestsPerSecond = Math.max(0.0D, getDouble("settings.bee-count-payload-limits.requests-per-second", beeCountPayloadRequestsPerSecond));
+        beeCountPayloadBurst = Math.max(1, getInt("settings.bee-count-payload-limits.burst", beeCountPayloadBurst));
+        beeCountPayloadPushChanges = getBoolean("settings.bee-count-payload-limits.push-changes", beeCountPayloadPushChanges);
+    }
+
+    public static int asyncPathfindingThreads = 2;
+    public static int asyncPathfindingQueueSize = 256;
+    private static void asyncPathfindingSettings() {
+        asyncPathfindingThreads = Math.max(1, getInt("settings.async-pathfinding.threads", asyncPathfindingThreads));
+        asyncPathfindingQueueSize = Math.max(1, getInt("settings.async-pathfinding.queue-size", asyncPathfindingQueueSize));
+    }
+
+    public static boolean parallelExplosionRays = false;
+    public static double parallelExplosionRaysMinRadius = 8.0D;
+    public static int parallelExplosionRaysThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static void parallelExplosionRaysSettings() {
+        parallelExplosionRays = getBoolean("settings.parallel-explosion-rays.enabled", parallelExplosionRays);
+        parallelExplosionRaysMinRadius = getDouble("settings.parallel-explosion-rays.min-radius", parallelExplosionRaysMinRadius);
+        parallelExplosionRaysThreads = Math.max(1, getInt("settings.parallel-explosion-rays.threads", parallelExplosionRaysThreads));
     }
 
     public static boolean loggerSuppressInitLegacyMaterialError = false;
@@ -517,6 +694,16 @@ public class PurpurConfig {
         fixProjectileLootingTransfer = getBoolean("settings.fix-projectile-looting-transfer", fixProjectileLootingTransfer);
     }
 
+    public static boolean equationRhinoFallback = false;
+    private static void equationSettings() {
+        equationRhinoFallback = getBoolean("settings.equations.rhino-fallback", equationRhinoFallback);
+    }
+
+    public static boolean parallelWorldSettings = false;
+    private static void worldSettingsLoading() {
+        parallelWorldSettings = getBoolean("settings.world-settings.parallel-load", parallelWorldSettings);
+    }
+
     public static boolean clampAttributes = true;
     private static void clampAttributes() {
         clampAttributes = getBoolean("settings.clamp-attributes", clampAttributes);
@@ -1,15 +1,19 @@
 package org.purpurmc.purpur;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.logging.Level;
+import net.minecraft.core.Registry;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.Identifier;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.Mth;
-import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.monster.Shulker;
 import net.minecraft.world.item.DyeColor;
 import net.minecraft.world.item.Item;
@@ -23,59 +27,101 @@ import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import java.util.List;
 import java.util.Map;
+import org.purpurmc.purpur.equation.Equation;
 import org.purpurmc.purpur.tool.Flattenable;
 import org.purpurmc.purpur.tool.Strippable;
 import org.purpurmc.purpur.tool.Tillable;
 import org.purpurmc.purpur.tool.Waxable;
 import org.purpurmc.purpur.tool.Weatherable;
+import org.purpurmc.purpur.util.RegistryBitSet;
 
 import static org.purpurmc.purpur.PurpurConfig.log;
 
 @SuppressWarnings("unused")
 public class PurpurWorldConfig {
 
+    private static final String DEFAULT_PATH = "world-settings.default.";
+
     private final String worldName;
+    private final String worldPath;
     private final World.Environment environment;
+    private Map<String, RegistryBitSet<?>> registrySets = new LinkedHashMap<>();
 
     public PurpurWorldConfig(String worldName, World.Environment environment) {
         this.worldName = worldName;
+        this.worldPath = "world-settings." + worldName + ".";
         this.environment = environment;
         init();
     }
 
     public void init() {
+        long start = System.nanoTime();
         log("-------- World Settings For [" + worldName + "] --------");
+        registrySets = new LinkedHashMap<>();
         PurpurConfig.readConfig(PurpurWorldConfig.class, this);
+        PurpurConfig.worldSectionRead(System.nanoTime() - start);
+    }
+
+    /**
+     * Re-reads the settings of all given worlds and saves the config once.
+     * <p>
+     * With {@code settings.world-settings.parallel-load} the first world is read on its own, which writes every
+     * missing default, after which the remaining worlds only read the config and are resolved in parallel.
+     * Worlds are always read one at a time while the config still needs migrating.
+     */
+    public static void initAll(Iterable<ServerLevel> levels) {
+        List<PurpurWorldConfig> configs = new ArrayList<>();
+        levels.forEach(level -> configs.add(level.purpurConfig));
+        if (configs.isEmpty()) {
+            return;
+        }
+        configs.getFirst().init();
+        List<PurpurWorldConfig> rest = configs.subList(1, configs.size());
+        if (!PurpurConfig.parallelWorldSettings || PurpurConfig.version < PurpurConfig.CONFIG_VERSION) {
+            rest.forEach(PurpurWorldConfig::init);
+            return;
+        }
+        PurpurConfig.LOCK.readLock().lock();
+        try {
+            rest.parallelStream().forEach(config -> {
+                long start = System.nanoTime();
+                log("-------- World Settings For [" + config.worldName + "] --------");
+                PurpurConfig.invokeSettings(PurpurWorldConfig.class, config);
+                PurpurConfig.worldSectionRead(System.nanoTime() - start);
+            });
+        } finally {
+            PurpurConfig.LOCK.readLock().unlock();
+        }
     }
 
     private void set(String path, Object val) {
-        if (PurpurConfig.config.get("world-settings.default." + path) == null || val == null) {
-            PurpurConfig.config.addDefault("world-settings.default." + path, val);
-            PurpurConfig.config.set("world-settings.default." + path, val);
+        if (PurpurConfig.config.get(DEFAULT_PATH + path) == null || val == null) {
+            PurpurConfig.config.addDefault(DEFAULT_PATH + path, val);
+            PurpurConfig.config.set(DEFAULT_PATH + path, val);
         }
-        if (PurpurConfig.config.get("world-settings." + worldName + "." + path) != null) {
-            PurpurConfig.config.addDefault("world-settings." + worldName + "." + path, val);
-            PurpurConfig.config.set("world-settings." + worldName + "." + path, val);
+        if (PurpurConfig.config.get(worldPath + path) != null) {
+            PurpurConfig.config.addDefault(worldPath + path, val);
+            PurpurConfig.config.set(worldPath + path, val);
         }
     }
 
     private ConfigurationSection getConfigurationSection(String path) {
-        ConfigurationSection section = PurpurConfig.config.getConfigurationSection("world-settings." + worldName + "." + path);
-        return section != null ? section : PurpurConfig.config.getConfigurationSection("world-settings.default." + path);
+        ConfigurationSection section = PurpurConfig.config.getConfigurationSection(worldPath + path);
+        return section != null ? section : PurpurConfig.config.getConfigurationSection(DEFAULT_PATH + path);
     }
 
     private String getString(String path, String def) {
-        if (PurpurConfig.config.get("world-settings.default." + path) == null) {
-            PurpurConfig.config.addDefault("world-settings.default." + path, def);
+        if (PurpurConfig.config.get(DEFAULT_PATH + path) == null) {
+            PurpurConfig.config.addDefault(DEFAULT_PATH + path, def);
         }
-        return PurpurConfig.config.getString("world-settings." + worldName + "." + path, PurpurConfig.config.getString("world-settings.default." + path));
+        return PurpurConfig.config.getString(worldPath + path, PurpurConfig.config.getString(DEFAULT_PATH + path));
     }
 
     private boolean getBoolean(String path, boolean def) {
-        if (PurpurConfig.config.get("world-settings.default." + path) == null) {
-            PurpurConfig.config.addDefault("world-settings.default." + path, def);
+        if (PurpurConfig.config.get(DEFAULT_PATH + path) == null) {
+            PurpurConfig.config.addDefault(DEFAULT_PATH + path, def);
         }
-        return PurpurConfig.config.getBoolean("world-settings." + worldName + "." + path, PurpurConfig.config.getBoolean("world-settings.default." + path));
+        return PurpurConfig.config.getBoolean(worldPath + path, PurpurConfig.config.getBoolean(DEFAULT_PATH + path));
     }
 
     private boolean getBoolean(String path, Predicate<Boolean> predicate) {
@@ -90,29 +136,57 @@ public class PurpurWorldConfig {
     }
 
     private double getDouble(String path, double def) {
-        if (PurpurConfig.config.get("world-settings.default." + path) == null) {
-            PurpurConfig.config.addDefault("world-settings.default." + path, def);
+        if (PurpurConfig.config.get(DEFAULT_PATH + path) == null) {
+            PurpurConfig.config.addDefault(DEFAULT_PATH + path, def);
         }
-        return PurpurConfig.config.getDouble("world-settings." + worldName + "." + path, PurpurConfig.config.getDouble("world-settings.default." + path));
+        return PurpurConfig.config.getDouble(worldPath + path, PurpurConfig.config.getDouble(DEFAULT_PATH + path));
     }
 
     private int getInt(String path, int def) {
-        if (PurpurConfig.config.get("world-settings.default." + path) == null) {
-            PurpurConfig.config.addDefault("world-settings.default." + path, def);
+        if (PurpurConfig.config.get(DEFAULT_PATH + path) == null) {
+            PurpurConfig.config.addDefault(DEFAULT_PATH + path, def);
         }
-        return PurpurConfig.config.getInt("world-settings." + worldName + "." + path, PurpurConfig.config.getInt("world-settings.default." + path));
+        return PurpurConfig.config.getInt(worldPath + path, PurpurConfig.config.getInt(DEFAULT_PATH + path));
     }
 
     private <T> List<?> getList(String path, T def) {
-        if (PurpurConfig.config.get("world-settings.default." + path) == null) {
-            PurpurConfig.config.addDefault("world-settings.default." + path, def);
+        if (PurpurConfig.config.get(DEFAULT_PATH + path) == null) {
+            PurpurConfig.config.addDefault(DEFAULT_PATH + path, def);
         }
-        return PurpurConfig.config.getList("world-settings." + worldName + "." + path, PurpurConfig.config.getList("world-settings.default." + path));
+        return PurpurConfig.config.getList(worldPath + path, PurpurConfig.config.getList(DEFAULT_PATH + path));
+    }
+
+    private Equation getEquation(String path, Equation def) {
+        String source = getString(path, def.source());
+        try {
+            return Equation.compile(source, def.variables());
+        } catch (IllegalArgumentException e) {
+            if (PurpurConfig.equationRhinoFallback) {
+                PurpurConfig.log(Level.WARNING, "Could not compile equation for `world-settings." + worldName + "." + path + "`, falling back to Rhino: " + e.getMessage());
+                return Equation.rhino(source, def);
+            }
+            PurpurConfig.log(Level.SEVERE, "Invalid equation for `world-settings." + worldName + "." + path + "`, using default `" + def.source() + "`: " + e.getMessage());
+            return def;
+        }
+    }
+
+    private <T> RegistryBitSet<T> getRegistrySet(String path, Registry<T> registry, List<String> def, Predicate<T> filter) {
+        RegistryBitSet<T> set = RegistryBitSet.parse(registry, getList(path, def), filter,
+            key -> log(Level.WARNING, "Unknown entry `" + key + "` in `world-settings." + worldName + "." + path + "`"));
+        registrySets.put(path, set);
+        return set;
+    }
+
+    /**
+     * Returns the resolved registry sets of this world by config path, in the order they were read.
+     */
+    public Map<String, RegistryBitSet<?>> registrySets() {
+        return Collections.unmodifiableMap(registrySets);
     }
 
     private Map<String, Object> getMap(String path, Map<String, Object> def) {
-        final Map<String, Object> fallback = PurpurConfig.getMap("world-settings.default." + path, def);
-        final Map<String, Object> value = PurpurConfig.getMap("world-settings." + worldName + "." + path, null);
+        final Map<String, Object> fallback = PurpurConfig.getMap(DEFAULT_PATH + path, def);
+        final Map<String, Object> value = PurpurConfig.getMap(worldPath + path, null);
         return value.isEmpty() ? fallback : value;
     }
 
@@ -257,10 +331,10 @@ public class PurpurWorldConfig {
         infinityWorksWithoutArrows = getBoolean("gameplay-mechanics.infinity-bow.works-without-arrows", infinityWorksWithoutArrows);
     }
 
-    public List<Item> itemImmuneToCactus = new ArrayList<>();
-    public List<Item> itemImmuneToExplosion = new ArrayList<>();
-    public List<Item> itemImmuneToFire = new ArrayList<>();
-    public List<Item> itemImmuneToLightning = new ArrayList<>();
+    public RegistryBitSet<Item> itemImmuneToCactus = RegistryBitSet.empty(BuiltInRegistries.ITEM);
+    public RegistryBitSet<Item> itemImmuneToExplosion = RegistryBitSet.empty(BuiltInRegistries.ITEM);
+    public RegistryBitSet<Item> itemImmuneToFire = RegistryBitSet.empty(BuiltInRegistries.ITEM);
+    public RegistryBitSet<Item> itemImmuneToLightning = RegistryBitSet.empty(BuiltInRegistries.ITEM);
     public boolean dontRunWithScissors = false;
     public Identifier dontRunWithScissorsItemModelReference = Identifier.parse("purpurmc:scissors");
     public boolean ignoreScissorsInWater = false;
@@ -277,42 +351,10 @@ public class PurpurWorldConfig {
     public boolean snowballExtinguishesCandles = false;
     public boolean snowballExtinguishesCampfires = false;
     private void itemSettings() {
-        itemImmuneToCactus.clear();
-        getList("gameplay-mechanics.item.immune.cactus", new ArrayList<>()).forEach(key -> {
-            if (key.toString().equals("*")) {
-                BuiltInRegistries.ITEM.stream().filter(item -> item != Items.AIR).forEach((item) -> itemImmuneToCactus.add(item));
-                return;
-            }
-            Item item = BuiltInRegistries.ITEM.getValue(Identifier.parse(key.toString()));
-            if (item != Items.AIR) itemImmuneToCactus.add(item);
-        });
-        itemImmuneToExplosion.clear();
-        getList("gameplay-mechanics.item.immune.explosion", new ArrayList<>()).forEach(key -> {
-            if (key.toString().equals("*")) {
-                BuiltInRegistries.ITEM.stream().filter(item -> item != Items.AIR).forEach((item) -> itemImmuneToExplosion.add(item));
-                return;
-            }
-            Item item = BuiltInRegistries.ITEM.getValue(Identifier.parse(key.toString()));
-            if (item != Items.AIR) itemImmuneToExplosion.add(item);
-        });
-        itemImmuneToFire.clear();
-        getList("gameplay-mechanics.item.immune.fire", new ArrayList<>()).forEach(key -> {
-            if (key.toString().equals("*")) {
-                BuiltInRegistries.ITEM.stream().filter(item -> item != Items.AIR).forEach((item) -> itemImmuneToFire.add(item));
-                return;
-            }
-            Item item = BuiltInRegistries.ITEM.getValue(Identifier.parse(key.toString()));
-            if (item != Items.AIR) itemImmuneToFire.add(item);
-        });
-        itemImmuneToLightning.clear();
-        getList("gameplay-mechanics.item.immune.lightning", new ArrayList<>()).forEach(key -> {
-            if (key.toString().equals("*")) {
-                BuiltInRegistries.ITEM.stream().filter(item -> item != Items.AIR).forEach((item) -> itemImmuneToLightning.add(item));
-                return;
-            }
-            Item item = BuiltInRegistries.ITEM.getValue(Identifier.parse(key.toString()));
-            if (item != Items.AIR) itemImmuneToLightning.add(item);
-        });
+        itemImmuneToCactus = getRegistrySet("gameplay-mechanics.item.immune.cactus", BuiltInRegistries.ITEM, new ArrayList<>(), item -> item != Items.AIR);
+        itemImmuneToExplosion = getRegistrySet("gameplay-mechanics.item.immune.explosion", BuiltInRegistries.ITEM, new ArrayList<>(), item -> item != Items.AIR);
+        itemImmuneToFire = getRegistrySet("gameplay-mechanics.item.immune.fire", BuiltInRegistries.ITEM, new ArrayList<>(), item -> item != Items.AIR);
+        itemImmuneToLightning = getRegistrySet("gameplay-mechanics.item.immune.lightning", BuiltInRegistries.ITEM, new ArrayList<>(), item -> item != Items.AIR);
         dontRunWithScissors = getBoolean("gameplay-mechanics.item.shears.damage-if-sprinting", dontRunWithScissors);
         dontRunWithScissorsItemModelReference = Identifier.parse(getString("gameplay-mechanics.item.shears.damage-if-sprinting-item-model", "purpurmc:scissors"));
         ignoreScissorsInWater = getBoolean("gameplay-mechanics.item.shears.ignore-in-water", ignoreScissorsInWater);
@@ -415,6 +457,7 @@ public class PurpurWorldConfig {
     public boolean villagerTraderSpawning;
     public boolean villageSiegeSpawning;
     public boolean mobSpawningIgnoreCreativePlayers = false;
+    public boolean mobSpawningAsyncSpawnState = false;
     private void mobSpawnerSettings() {
         // values of "default" or null will default to true only if the world environment is normal (aka overworld)
         Predicate<Boolean> predicate = (bool) -> (bool != null && bool) || (bool == null && environment == World.Environment.NORMAL);
@@ -424,6 +467,38 @@ public class PurpurWorldConfig {
         villagerTraderSpawning = getBoolean("gameplay-mechanics.mob-spawning.wandering-traders", predicate);
         villageSiegeSpawning = getBoolean("gameplay-mechanics.mob-spawning.village-sieges", predicate);
         mobSpawningIgnoreCreativePlayers = getBoolean("gameplay-mechanics.mob-spawning.ignore-creative-players", mobSpawningIgnoreCreativePlayers);
+        mobSpawningAsyncSpawnState = getBoolean("gameplay-mechanics.mob-spawning.async-spawn-state", mobSpawningAsyncSpawnState);
+    }
+
+    public boolean dabEnabled = false;
+    public int dabStartDistance = 12;
+    public int dabStartDistanceSquared = 144;
+    public int dabMaxTickFreq = 20;
+    public int dabActivationDistMod = 8;
+    public RegistryBitSet<EntityType<?>> dabExcludedEntities = RegistryBitSet.empty(BuiltInRegistries.ENTITY_TYPE);
+    private void dynamicActivationOfBrainSettings() {
+        dabEnabled = getBoolean("gameplay-mechanics.dynamic-activation-of-brain.enabled", dabEnabled);
+        dabStartDistance = getInt("gameplay-mechanics.dynamic-activation-of-brain.start-distance", dabStartDistance);
+        dabStartDistanceSquared = dabStartDistance * dabStartDistance;
+        dabMaxTickFreq = Math.max(1, getInt("gameplay-mechanics.dynamic-activation-of-brain.max-tick-freq", dabMaxTickFreq));
+        dabActivationDistMod = Mth.clamp(getInt("gameplay-mechanics.dynamic-activation-of-brain.activation-dist-mod", dabActivationDistMod), 0, 31);
+        dabExcludedEntities = getRegistrySet("gameplay-mechanics.dynamic-activation-of-brain.excluded-entities", BuiltInRegistries.ENTITY_TYPE, new ArrayList<>(), type -> true);
+    }
+
+    public boolean inactiveGoalSelectorThrottle = false;
+    public int inactiveGoalSelectorThrottleInterval = 20;
+    private void inactiveGoalSelectorThrottleSettings() {
+        inactiveGoalSelectorThrottle = getBoolean("gameplay-mechanics.inactive-goal-selector-throttle.enabled", inactiveGoalSelectorThrottle);
+        inactiveGoalSelectorThrottleInterval = Math.max(1, getInt("gameplay-mechanics.inactive-goal-selector-throttle.interval", inactiveGoalSelectorThrottleInterval));
+    }
+
+    public boolean asyncPathfindingEnabled = false;
+    public RegistryBitSet<EntityType<?>> asyncPathfindingEntities = RegistryBitSet.empty(BuiltInRegistries.ENTITY_TYPE);
+    public boolean asyncPathfindingVerify = false;
+    private void asyncPathfindingSettings() {
+        asyncPathfindingEnabled = getBoolean("gameplay-mechanics.async-pathfinding.enabled", asyncPathfindingEnabled);
+        asyncPathfindingEntities = getRegistrySet("gameplay-mechanics.async-pathfinding.entities", BuiltInRegistries.ENTITY_TYPE, new ArrayList<>(), type -> true);
+        asyncPathfindingVerify = getBoolean("gameplay-mechanics.async-pathfinding.verify", asyncPathfindingVerify);
     }
 
     public boolean disableObserverClocks = false;
@@ -449,7 +524,7 @@ public class PurpurWorldConfig {
     public boolean idleTimeoutCountAsSleeping = false;
     public boolean idleTimeoutUpdateTabList = false;
     public boolean idleTimeoutTargetPlayer = true;
-    public String playerDeathExpDropEquation = "expLevel * 7";
+    public Equation playerDeathExpDropEquation = Equation.compile("expLevel * 7", "expLevel", "expTotal", "exp");
     public int playerDeathExpDropMax = 100;
     public boolean teleportIfOutsideBorder = false;
     public boolean teleportOnNetherCeilingDamage = false;
@@ -477,7 +552,7 @@ public class PurpurWorldConfig {
         idleTimeoutCountAsSleeping = getBoolean("gameplay-mechanics.player.idle-timeout.count-as-sleeping", idleTimeoutCountAsSleeping);
         idleTimeoutUpdateTabList = getBoolean("gameplay-mechanics.player.idle-timeout.update-tab-list", idleTimeoutUpdateTabList);
         idleTimeoutTargetPlayer = getBoolean("gameplay-mechanics.player.idle-timeout.mobs-target", idleTimeoutTargetPlayer);
-        playerDeathExpDropEquation = getString("gameplay-mechanics.player.exp-dropped-on-death.equation", playerDeathExpDropEquation);
+        playerDeathExpDropEquation = getEquation("gameplay-mechanics.player.exp-dropped-on-death.equation", playerDeathExpDropEquation);
         playerDeathExpDropMax = getInt("gameplay-mechanics.player.exp-dropped-on-death.maximum", playerDeathExpDropMax);
         teleportIfOutsideBorder = getBoolean("gameplay-mechanics.player.teleport-if-outside-border", teleportIfOutsideBorder);
         teleportOnNetherCeilingDamage = getBoolean("gameplay-mechanics.player.teleport-on-nether-ceiling-damage", teleportOnNetherCeilingDamage);
@@ -496,10 +571,21 @@ public class PurpurWorldConfig {
         playerVoidTrading = getBoolean("gameplay-mechanics.player.allow-void-trading", playerVoidTrading);
     }
 
+    public boolean afkSimulationEnabled = false;
+    public int afkSimulationDistance = 4;
+    public boolean afkSimulationMobSpawning = false;
+    public int afkSimulationRandomTickInterval = 4;
+    private void afkSimulationSettings() {
+        afkSimulationEnabled = getBoolean("gameplay-mechanics.player.idle-timeout.simulation-profile.enabled", afkSimulationEnabled);
+        afkSimulationDistance = Math.max(2, Math.min(32, getInt("gameplay-mechanics.player.idle-timeout.simulation-profile.simulation-distance", afkSimulationDistance)));
+        afkSimulationMobSpawning = getBoolean("gameplay-mechanics.player.idle-timeout.simulation-profile.mob-spawning", afkSimulationMobSpawning);
+        afkSimulationRandomTickInterval = Math.max(1, getInt("gameplay-mechanics.player.idle-timeout.simulation-profile.random-tick-interval", afkSimulationRandomTickInterval));
+    }
+
     public boolean silkTouchEnabled = false;
     public String silkTouchSpawnerName = "<reset><white>Monster Spawner";
     public List<String> silkTouchSpawnerLore = new ArrayList<>();
-    public List<Item> silkTouchTools = new ArrayList<>();
+    public RegistryBitSet<Item> silkTouchTools = RegistryBitSet.empty(BuiltInRegistries.ITEM);
     public int minimumSilkTouchSpawnerRequire = 1;
     private void silkTouchSettings() {
         if (PurpurConfig.version < 21) {
@@ -516,16 +602,12 @@ public class PurpurWorldConfig {
         silkTouchSpawnerLore.clear();
         getList("gameplay-mechanics.silk-touch.spawner-lore", List.of("Spawns a <mob>"))
                 .forEach(line -> silkTouchSpawnerLore.add(line.toString()));
-        silkTouchTools.clear();
-        getList("gameplay-mechanics.silk-touch.tools", List.of(
+        silkTouchTools = getRegistrySet("gameplay-mechanics.silk-touch.tools", BuiltInRegistries.ITEM, List.of(
                 "minecraft:iron_pickaxe",
                 "minecraft:golden_pickaxe",
                 "minecraft:diamond_pickaxe",
                 "minecraft:netherite_pickaxe"
-        )).forEach(key -> {
-            Item item = BuiltInRegistries.ITEM.getValue(Identifier.parse(key.toString()));
-            if (item != Items.AIR) silkTouchTools.add(item);
-        });
+        ), item -> item != Items.AIR);
     }
 
     public double bowProjectileOffset = 1.0D;
@@ -1037,14 +1119,9 @@ public class PurpurWorldConfig {
         dispenserPlaceAnvils = getBoolean("blocks.dispenser.place-anvils", dispenserPlaceAnvils);
     }
 
-    public List<Block> doorRequiresRedstone = new ArrayList<>();
+    public RegistryBitSet<Block> doorRequiresRedstone = RegistryBitSet.empty(BuiltInRegistries.BLOCK);
     private void doorSettings() {
-        getList("blocks.door.requires-redstone", new ArrayList<String>()).forEach(key -> {
-            Block block = BuiltInRegistries.BLOCK.getValue(Identifier.parse(key.toString()));
-            if (!block.defaultBlockState().isAir()) {
-                doorRequiresRedstone.add(block);
-            }
-        });
+        doorRequiresRedstone = getRegistrySet("blocks.door.requires-redstone", BuiltInRegistries.BLOCK, new ArrayList<>(), block -> !block.defaultBlockState().isAir());
     }
 
     public boolean dragonEggTeleport = true;
@@ -2288,10 +2365,8 @@ public class PurpurWorldConfig {
     public boolean magmaCubeRidable = false;
     public boolean magmaCubeRidableInWater = true;
     public boolean magmaCubeControllable = true;
-    public String magmaCubeMaxHealth = "size * size";
-    public String magmaCubeAttackDamage = "size";
-    public Map<Integer, Double> magmaCubeMaxHealthCache = new HashMap<>();
-    public Map<Integer, Double> magmaCubeAttackDamageCache = new HashMap<>();
+    public Equation magmaCubeMaxHealth = Equation.compile("size * size", "size");
+    public Equation magmaCubeAttackDamage = Equation.compile("size", "size");
     public boolean magmaCubeTakeDamageFromWater = false;
     public boolean magmaCubeAlwaysDropExp = false;
     private void magmaCubeSettings() {
@@ -2299,14 +2374,12 @@ public class PurpurWorldConfig {
         magmaCubeRidableInWater = getBoolean("mobs.magma_cube.ridable-in-water", magmaCubeRidableInWater);
         magmaCubeControllable = getBoolean("mobs.magma_cube.controllable", magmaCubeControllable);
         if (PurpurConfig.version < 10) {
-            String oldValue = getString("mobs.magma_cube.attributes.max-health", magmaCubeMaxHealth);
+            String oldValue = getString("mobs.magma_cube.attributes.max-health", magmaCubeMaxHealth.source());
             set("mobs.magma_cube.attributes.max-health", null);
             set("mobs.magma_cube.attributes.max_health", oldValue);
         }
-        magmaCubeMaxHealth = getString("mobs.magma_cube.attributes.max_health", magmaCubeMaxHealth);
-        magmaCubeAttackDamage = getString("mobs.magma_cube.attributes.attack_damage", magmaCubeAttackDamage);
-        magmaCubeMaxHealthCache.clear();
-        magmaCubeAttackDamageCache.clear();
+        magmaCubeMaxHealth = getEquation("mobs.magma_cube.attributes.max_health", magmaCubeMaxHealth);
+        magmaCubeAttackDamage = getEquation("mobs.magma_cube.attributes.attack_damage", magmaCubeAttackDamage);
         magmaCubeTakeDamageFromWater = getBoolean("mobs.magma_cube.takes-damage-from-water", magmaCubeTakeDamageFromWater);
         magmaCubeAlwaysDropExp = getBoolean("mobs.magma_cube.always-drop-exp", magmaCubeAlwaysDropExp);
     }
@@ -2465,10 +2538,8 @@ public class PurpurWorldConfig {
     public float phantomFlameDamage = 1.0F;
     public int phantomFlameFireTime = 8;
     public boolean phantomAllowGriefing = false;
-    public String phantomMaxHealth = "20.0";
-    public String phantomAttackDamage = "6 + size";
-    public Map<Integer, Double> phantomMaxHealthCache = new HashMap<>();
-    public Map<Integer, Double> phantomAttackDamageCache = new HashMap<>();
+    public Equation phantomMaxHealth = Equation.compile("20.0", "size");
+    public Equation phantomAttackDamage = Equation.compile("6 + size", "size");
     public double phantomAttackedByCrystalRadius = 0.0D;
     public float phantomAttackedByCrystalDamage = 1.0F;
     public double phantomOrbitCrystalRadius = 0.0D;
@@ -2495,18 +2566,16 @@ public class PurpurWorldConfig {
         phantomFlameFireTime = getInt("mobs.phantom.flames.fire-time", phantomFlameFireTime);
         phantomAllowGriefing = getBoolean("mobs.phantom.allow-griefing", phantomAllowGriefing);
         if (PurpurConfig.version < 10) {
-            double oldValue = getDouble("mobs.phantom.attributes.max-health", Double.parseDouble(phantomMaxHealth));
+            double oldValue = getDouble("mobs.phantom.attributes.max-health", Double.parseDouble(phantomMaxHealth.source()));
             set("mobs.phantom.attributes.max-health", null);
             set("mobs.phantom.attributes.max_health", String.valueOf(oldValue));
         }
         if (PurpurConfig.version < 25) {
-            double oldValue = getDouble("mobs.phantom.attributes.max_health", Double.parseDouble(phantomMaxHealth));
+            double oldValue = getDouble("mobs.phantom.attributes.max_health", Double.parseDouble(phantomMaxHealth.source()));
             set("mobs.phantom.attributes.max_health", String.valueOf(oldValue));
         }
-        phantomMaxHealth = getString("mobs.phantom.attributes.max_health", phantomMaxHealth);
-        phantomAttackDamage = getString("mobs.phantom.attributes.attack_damage", phantomAttackDamage);
-        phantomMaxHealthCache.clear();
-        phantomAttackDamageCache.clear();
+        phantomMaxHealth = getEquation("mobs.phantom.attributes.max_health", phantomMaxHealth);
+        phantomAttackDamage = getEquation("mobs.phantom.attributes.attack_damage", phantomAttackDamage);
         phantomAttackedByCrystalRadius = getDouble("mobs.phantom.attacked-by-crystal-range", phantomAttackedByCrystalRadius);
         phantomAttackedByCrystalDamage = (float) getDouble("mobs.phantom.attacked-by-crystal-damage", phantomAttackedByCrystalDamage);
         phantomOrbitCrystalRadius = getDouble("mobs.phantom.orbit-crystal-radius", phantomOrbitCrystalRadius);
@@ -2734,7 +2803,7 @@ public class PurpurWorldConfig {
     public double ravagerScale = 1.0D;
     public Boolean ravagerMobGriefingOverride = null;
     public boolean ravagerTakeDamageFromWater = false;
-    public List<Block> ravagerGriefableBlocks = new ArrayList<>();
+    public RegistryBitSet<Block> ravagerGriefableBlocks = RegistryBitSet.empty(BuiltInRegistries.BLOCK);
     public boolean ravagerAlwaysDropExp = false;
     public boolean ravagerAvoidRabbits = false;
     private void ravagerSettings() {
@@ -2787,12 +2856,7 @@ public class PurpurWorldConfig {
             set.add("minecraft:pitcher_crop");
             set("mobs.ravager.griefable-blocks", new ArrayList<>(set));
         }
-        getList("mobs.ravager.griefable-blocks", defaultRavagerGriefableBlocks).forEach(key -> {
-            Block block = BuiltInRegistries.BLOCK.getValue(Identifier.parse(key.toString()));
-            if (!block.defaultBlockState().isAir()) {
-                ravagerGriefableBlocks.add(block);
-            }
-        });
+        ravagerGriefableBlocks = getRegistrySet("mobs.ravager.griefable-blocks", BuiltInRegistries.BLOCK, defaultRavagerGriefableBlocks, block -> !block.defaultBlockState().isAir());
         ravagerAlwaysDropExp = getBoolean("mobs.ravager.always-drop-exp", ravagerAlwaysDropExp);
         ravagerAvoidRabbits = getBoolean("mobs.ravager.avoid-rabbits", ravagerAvoidRabbits);
     }
@@ -2857,7 +2921,7 @@ public class PurpurWorldConfig {
     public float shulkerSpawnFromBulletBaseChance = 1.0F;
     public boolean shulkerSpawnFromBulletRequireOpenLid = true;
     public double shulkerSpawnFromBulletNearbyRange = 8.0D;
-    public String shulkerSpawnFromBulletNearbyEquation = "(nearby - 1) / 5.0";
+    public Equation shulkerSpawnFromBulletNearbyEquation = Equation.compile("(nearby - 1) / 5.0", "nearby");
     public boolean shulkerSpawnFromBulletRandomColor = false;
     public boolean shulkerChangeColorWithDye = false;
     public boolean shulkerAlwaysDropExp = false;
@@ -2876,7 +2940,7 @@ public class PurpurWorldConfig {
         shulkerSpawnFromBulletBaseChance = (float) getDouble("mobs.shulker.spawn-from-bullet.base-chance", shulkerSpawnFromBulletBaseChance);
         shulkerSpawnFromBulletRequireOpenLid = getBoolean("mobs.shulker.spawn-from-bullet.require-open-lid", shulkerSpawnFromBulletRequireOpenLid);
         shulkerSpawnFromBulletNearbyRange = getDouble("mobs.shulker.spawn-from-bullet.nearby-range", shulkerSpawnFromBulletNearbyRange);
-        shulkerSpawnFromBulletNearbyEquation = getString("mobs.shulker.spawn-from-bullet.nearby-equation", shulkerSpawnFromBulletNearbyEquation);
+        shulkerSpawnFromBulletNearbyEquation = getEquation("mobs.shulker.spawn-from-bullet.nearby-equation", shulkerSpawnFromBulletNearbyEquation);
         shulkerSpawnFromBulletRandomColor = getBoolean("mobs.shulker.spawn-from-bullet.random-color", shulkerSpawnFromBulletRandomColor);
         shulkerChangeColorWithDye = getBoolean("mobs.shulker.change-color-with-dye", shulkerChangeColorWithDye);
         shulkerAlwaysDropExp = getBoolean("mobs.shulker.always-drop-exp", shulkerAlwaysDropExp);
@@ -2924,7 +2988,7 @@ public class PurpurWorldConfig {
     public boolean skeletonAlwaysDropExp = false;
     public double skeletonHeadVisibilityPercent = 0.5D;
     public int skeletonFeedWitherRoses = 0;
-    public String skeletonBowAccuracy = "14 - difficulty * 4";
+    public Equation skeletonBowAccuracy = Equation.compile("14 - difficulty * 4", "difficulty");
     public Map<Integer, Float> skeletonBowAccuracyMap = new HashMap<>();
     private void skeletonSettings() {
         skeletonRidable = getBoolean("mobs.skeleton.ridable", skeletonRidable);
@@ -2941,17 +3005,10 @@ public class PurpurWorldConfig {
         skeletonAlwaysDropExp = getBoolean("mobs.skeleton.always-drop-exp", skeletonAlwaysDropExp);
         skeletonHeadVisibilityPercent = getDouble("mobs.skeleton.head-visibility-percent", skeletonHeadVisibilityPercent);
         skeletonFeedWitherRoses = getInt("mobs.skeleton.feed-wither-roses", skeletonFeedWitherRoses);
-        final String defaultSkeletonBowAccuracy = skeletonBowAccuracy;
-        skeletonBowAccuracy = getString("mobs.skeleton.bow-accuracy", skeletonBowAccuracy);
+        skeletonBowAccuracy = getEquation("mobs.skeleton.bow-accuracy", skeletonBowAccuracy);
+        skeletonBowAccuracyMap.clear();
         for (int i = 1; i < 4; i++) {
-            final float divergence;
-            try {
-                divergence = ((Number) Entity.scriptEngine.eval("let difficulty = " + i + "; " + skeletonBowAccuracy)).floatValue();
-            } catch (javax.script.ScriptException e) {
-                org.bukkit.Bukkit.getLogger().log(Level.SEVERE, "Failed to evaluate skeleton bow accuracy script for difficulty " + i, e);
-                break;
-            }
-            skeletonBowAccuracyMap.put(i, divergence);
+            skeletonBowAccuracyMap.put(i, (float) skeletonBowAccuracy.evaluate(i));
         }
     }
 
@@ -2989,10 +3046,8 @@ public class PurpurWorldConfig {
     public boolean slimeRidable = false;
     public boolean slimeRidableInWater = true;
     public boolean slimeControllable = true;
-    public String slimeMaxHealth = "size * size";
-    public String slimeAttackDamage = "size";
-    public Map<Integer, Double> slimeMaxHealthCache = new HashMap<>();
-    public Map<Integer, Double> slimeAttackDamageCache = new HashMap<>();
+    public Equation slimeMaxHealth = Equation.compile("size * size", "size");
+    public Equation slimeAttackDamage = Equation.compile("size", "size");
     public boolean slimeTakeDamageFromWater = false;
     public boolean slimeAlwaysDropExp = false;
     private void slimeSettings() {
@@ -3000,14 +3055,12 @@ public class PurpurWorldConfig {
         slimeRidableInWater = getBoolean("mobs.slime.ridable-in-water", slimeRidableInWater);
         slimeControllable = getBoolean("mobs.slime.controllable", slimeControllable);
         if (PurpurConfig.version < 10) {
-            String oldValue = getString("mobs.slime.attributes.max-health", slimeMaxHealth);
+            String oldValue = getString("mobs.slime.attributes.max-health", slimeMaxHealth.source());
             set("mobs.slime.attributes.max-health", null);
             set("mobs.slime.attributes.max_health", oldValue);
         }
-        slimeMaxHealth = getString("mobs.slime.attributes.max_health", slimeMaxHealth);
-        slimeAttackDamage = getString("mobs.slime.attributes.attack_damage", slimeAttackDamage);
-        slimeMaxHealthCache.clear();
-        slimeAttackDamageCache.clear();
+        slimeMaxHealth = getEquation("mobs.slime.attributes.max_health", slimeMaxHealth);
+        slimeAttackDamage = getEquation("mobs.slime.attributes.attack_damage", slimeAttackDamage);
         slimeTakeDamageFromWater = getBoolean("mobs.slime.takes-damage-from-water", slimeTakeDamageFromWater);
         slimeAlwaysDropExp = getBoolean("mobs.slime.always-drop-exp", slimeAlwaysDropExp);
     }
@@ -3725,24 +3778,17 @@ public class PurpurWorldConfig {
     public int conduitDistance = 16;
     public double conduitDamageDistance = 8;
     public float conduitDamageAmount = 4;
-    public Block[] conduitBlocks;
+    public RegistryBitSet<Block> conduitBlocks = RegistryBitSet.empty(BuiltInRegistries.BLOCK);
     private void conduitSettings() {
         conduitDistance = getInt("blocks.conduit.effect-distance", conduitDistance);
         conduitDamageDistance = getDouble("blocks.conduit.mob-damage.distance", conduitDamageDistance);
         conduitDamageAmount = (float) getDouble("blocks.conduit.mob-damage.damage-amount", conduitDamageAmount);
-        List<Block> conduitBlockList = new ArrayList<>();
-        getList("blocks.conduit.valid-ring-blocks", new ArrayList<String>(){{
+        conduitBlocks = getRegistrySet("blocks.conduit.valid-ring-blocks", BuiltInRegistries.BLOCK, new ArrayList<String>(){{
             add("minecraft:prismarine");
             add("minecraft:prismarine_bricks");
             add("minecraft:sea_lantern");
             add("minecraft:dark_prismarine");
-        }}).forEach(key -> {
-            Block block = BuiltInRegistries.BLOCK.getValue(Identifier.parse(key.toString()));
-            if (!block.defaultBlockState().isAir()) {
-                conduitBlockList.add(block);
-            }
-        });
-        conduitBlocks = conduitBlockList.toArray(Block[]::new);
+        }}, block -> !block.defaultBlockState().isAir());
     }
 
     public float cauldronRainChance = 0.05F;
@@ -3762,4 +3808,9 @@ public class PurpurWorldConfig {
         shearsCanDefuseTntChance = (float) getDouble("gameplay-mechanics.item.shears.defuse-tnt-chance", 0.00D);
         shearsCanDefuseTnt = shearsCanDefuseTntChance > 0.00F;
     }
+
+    public boolean mergePrimedTnt = false;
+    private void mergePrimedTntSettings() {
+        mergePrimedTnt = getBoolean("gameplay-mechanics.merge-primed-tnt", mergePrimedTnt);
+    }
 }
@@ -2,33 +2,64 @@ package org.purpurmc.purpur.command;
 
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.npc.villager.Villager;
 import org.purpurmc.purpur.PurpurConfig;
+import org.purpurmc.purpur.PurpurWorldConfig;
+import org.purpurmc.purpur.metrics.MetricsEndpoint;
+import org.purpurmc.purpur.profiler.TickProfiler;
+import org.purpurmc.purpur.util.RegistryBitSet;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class PurpurCommand extends Command {
+    private static final int DUMP_LIMIT = 64;
+
     public PurpurCommand(String name) {
         super(name);
         this.description = "Purpur related commands";
-        this.usageMessage = "/purpur [reload | version]";
+        this.usageMessage = "/purpur [reload | version | dab | villagers | afk | profile <start | stop> | config dump [world]]";
         this.setPermission("bukkit.command.purpur");
     }
 
     @Override
     public List<String> tabComplete(CommandSender sender, String alias, String[] args, Location location) throws IllegalArgumentException {
         if (args.length == 1) {
-            return Stream.of("reload", "version")
+            return Stream.of("reload", "version", "dab", "villagers", "afk", "profile", "config")
                     .filter(arg -> arg.startsWith(args[0].toLowerCase()))
                     .collect(Collectors.toList());
         }
+        if (args.length == 2 && args[0].equalsIgnoreCase("profile")) {
+            return Stream.of("start", "stop")
+                    .filter(arg -> arg.startsWith(args[1].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("config")) {
+            return Stream.of("dump")
+                    .filter(arg -> arg.startsWith(args[1].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+        if (args.length == 3 && args[0].equalsIgnoreCase("config")) {
+            List<String> worlds = new ArrayList<>();
+            for (ServerLevel level : MinecraftServer.getServer().getAllLevels()) {
+                String name = level.getWorld().getName();
+                if (name.toLowerCase().startsWith(args[2].toLowerCase())) {
+                    worlds.add(name);
+                }
+            }
+            return worlds;
+        }
         return Collections.emptyList();
     }
 
@@ -36,7 +67,7 @@ public class PurpurCommand extends Command {
     public boolean execute(CommandSender sender, String commandLabel, String[] args) {
         if (!testPermission(sender)) return true;
 
-        if (args.length != 1) {
+        if (args.length != 1 && !(args.length == 2 && args[0].equalsIgnoreCase("profile")) && !((args.length == 2 || args.length == 3) && args[0].equalsIgnoreCase("config"))) {
             sender.sendMessage(ChatColor.RED + "Usage: " + usageMessage);
             return false;
         }
@@ -47,13 +78,96 @@ public class PurpurCommand extends Command {
 
             MinecraftServer console = MinecraftServer.getServer();
             PurpurConfig.init((File) console.options.valueOf("purpur-settings"));
+            MetricsEndpoint.start();
+            PurpurWorldConfig.initAll(console.getAllLevels());
             for (ServerLevel level : console.getAllLevels()) {
-                level.purpurConfig.init();
                 level.resetBreedingCooldowns(); // Purpur - Add adjustable breeding cooldown to config
             }
             console.server.reloadCount++;
 
             Command.broadcastCommandMessage(sender, ChatColor.GREEN + "Purpur config reload complete.");
+        } else if (args[0].equalsIgnoreCase("dab")) {
+            for (ServerLevel level : MinecraftServer.getServer().getAllLevels()) {
+                sender.sendMessage(ChatColor.GOLD + level.getWorld().getName() + ": " + (level.purpurConfig.dabEnabled ? ChatColor.GREEN + "enabled" : ChatColor.RED + "disabled")
+                    + ChatColor.GOLD + ", skipped brain ticks: " + ChatColor.YELLOW + level.skippedBrainTicks);
+            }
+        } else if (args[0].equalsIgnoreCase("villagers")) {
+            for (ServerLevel level : MinecraftServer.getServer().getAllLevels()) {
+                int villagers = 0;
+                int lobotomized = 0;
+                for (Entity entity : level.getAllEntities()) {
+                    if (entity instanceof Villager villager) {
+                        villagers++;
+                        if (villager.isLobotomized()) {
+                            lobotomized++;
+                        }
+                    }
+                }
+                sender.sendMessage(ChatColor.GOLD + level.getWorld().getName() + ": " + ChatColor.YELLOW + lobotomized + ChatColor.GOLD + " of " + ChatColor.YELLOW + villagers
+                    + ChatColor.GOLD + " villagers lobotomized, " + ChatColor.YELLOW + level.villagerReachability.size() + ChatColor.GOLD + " cached sections");
+            }
+        } else if (args[0].equalsIgnoreCase("afk")) {
+            for (ServerLevel level : MinecraftServer.getServer().getAllLevels()) {
+                sender.sendMessage(ChatColor.GOLD + level.getWorld().getName() + ": " + (level.purpurConfig.afkSimulationEnabled ? ChatColor.GREEN + "enabled" : ChatColor.RED + "disabled")
+                    + ChatColor.GOLD + ", afk players: " + ChatColor.YELLOW + level.afkSimulation.getAfkPlayers()
+                    + ChatColor.GOLD + ", reduced chunks: " + ChatColor.YELLOW + level.afkSimulation.getReducedChunks());
+            }
+        } else if (args[0].equalsIgnoreCase("profile")) {
+            if (args.length != 2) {
+                sender.sendMessage(ChatColor.RED + "Usage: /purpur profile <start | stop>");
+                return false;
+            }
+            if (args[1].equalsIgnoreCase("start")) {
+                if (TickProfiler.startProfiling()) {
+                    Command.broadcastCommandMessage(sender, ChatColor.GREEN + "Tick profiler started.");
+                } else {
+                    sender.sendMessage(ChatColor.RED + "The tick profiler is already running.");
+                }
+            } else if (args[1].equalsIgnoreCase("stop")) {
+                TickProfiler.Report report;
+                try {
+                    report = TickProfiler.stopProfiling();
+                } catch (IOException e) {
+                    sender.sendMessage(ChatColor.RED + "Could not write the profile: " + e.getMessage());
+                    return true;
+                }
+                if (report == null) {
+                    sender.sendMessage(ChatColor.RED + "The tick profiler is not running.");
+                    return true;
+                }
+                sender.sendMessage(ChatColor.GOLD + "Profiled " + ChatColor.YELLOW + report.ticks() + ChatColor.GOLD + " ticks in " + ChatColor.YELLOW + String.format("%.1f", report.durationNanos() / 1.0E9D) + "s" + ChatColor.GOLD + ", top spans:");
+                for (TickProfiler.Line line : report.lines().subList(0, Math.min(10, report.lines().size()))) {
+                    sender.sendMessage(ChatColor.YELLOW + String.format("%8.1fms ", line.nanos() / 1.0E6D) + ChatColor.GOLD + line.name().replace(';', '/'));
+                }
+                Command.broadcastCommandMessage(sender, ChatColor.GREEN + "Tick profile written to " + report.flatFile() + " and " + report.collapsedFile());
+            } else {
+                sender.sendMessage(ChatColor.RED + "Usage: /purpur profile <start | stop>");
+                return false;
+            }
+        } else if (args[0].equalsIgnoreCase("config")) {
+            if (args.length < 2 || !args[1].equalsIgnoreCase("dump")) {
+                sender.sendMessage(ChatColor.RED + "Usage: /purpur config dump [world]");
+                return false;
+            }
+            boolean found = false;
+            for (ServerLevel level : MinecraftServer.getServer().getAllLevels()) {
+                if (args.length == 3 && !level.getWorld().getName().equalsIgnoreCase(args[2])) {
+                    continue;
+                }
+                found = true;
+                sender.sendMessage(ChatColor.GOLD + "-------- " + level.getWorld().getName() + " --------");
+                for (Map.Entry<String, RegistryBitSet<?>> entry : level.purpurConfig.registrySets().entrySet()) {
+                    List<String> keys = entry.getValue().keys();
+                    String shown = String.join(", ", keys.subList(0, Math.min(DUMP_LIMIT, keys.size())));
+                    if (keys.size() > DUMP_LIMIT) {
+                        shown += " and " + (keys.size() - DUMP_LIMIT) + " more";
+                    }
+                    sender.sendMessage(ChatColor.GOLD + entry.getKey() + " (" + ChatColor.YELLOW + keys.size() + ChatColor.GOLD + "): " + ChatColor.YELLOW + (keys.isEmpty() ? "none" : shown));
+                }
+            }
+            if (!found) {
+                sender.sendMessage(ChatColor.RED + "Unknown world: " + args[2]);
+            }
         } else if (args[0].equalsIgnoreCase("version")) {
             Command verCmd = org.bukkit.Bukkit.getServer().getCommandMap().getCommand("version");
             if (verCmd != null) {
@@ -3,14 +3,12 @@ package org.purpurmc.purpur.command;
 import com.mojang.brigadier.CommandDispatcher;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.arguments.EntityArgument;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.permissions.Permissions;
-import org.purpurmc.purpur.PurpurConfig;
+import org.purpurmc.purpur.message.PurpurMessages;
 import org.purpurmc.purpur.task.RamBarTask;
 
 import java.util.Collection;
@@ -33,10 +31,10 @@ public class RamBarCommand {
             boolean result = RamBarTask.instance().togglePlayer(player.getBukkitEntity());
             player.ramBar(result);
 
-            Component output = MiniMessage.miniMessage().deserialize(PurpurConfig.rambarCommandOutput,
-                    Placeholder.component("onoff", Component.translatable(result ? "options.on" : "options.off")
-                            .color(result ? NamedTextColor.GREEN : NamedTextColor.RED)),
-                    Placeholder.parsed("target", player.getGameProfile().name()));
+            Component output = PurpurMessages.rambarCommandOutput.render(
+                    Component.translatable(result ? "options.on" : "options.off")
+                            .color(result ? NamedTextColor.GREEN : NamedTextColor.RED),
+                    Component.text(player.getGameProfile().name()));
 
             sender.sendSuccess(output, false);
         }
@@ -1,13 +1,11 @@
 package org.purpurmc.purpur.command;
 
 import com.mojang.brigadier.CommandDispatcher;
-import io.papermc.paper.adventure.PaperAdventure;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.Component;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.server.permissions.Permissions;
-import org.purpurmc.purpur.PurpurConfig;
+import org.purpurmc.purpur.message.PurpurMessages;
 import org.purpurmc.purpur.task.RamBarTask;
 
 public class RamCommand {
@@ -17,13 +15,13 @@ public class RamCommand {
                 .executes(context -> {
                     CommandSourceStack sender = context.getSource();
                     RamBarTask ramBar = RamBarTask.instance();
-                    sender.sendSuccess(() -> PaperAdventure.asVanilla(MiniMessage.miniMessage().deserialize(PurpurConfig.ramCommandOutput,
-                            Placeholder.component("allocated", ramBar.format(ramBar.getAllocated())),
-                            Placeholder.component("used", ramBar.format(ramBar.getUsed())),
-                            Placeholder.component("xmx", ramBar.format(ramBar.getXmx())),
-                            Placeholder.component("xms", ramBar.format(ramBar.getXms())),
-                            Placeholder.unparsed("percent", ((int) (ramBar.getPercent() * 100)) + "%")
-                    )), false);
+                    sender.sendSuccess(() -> PurpurMessages.ramCommandOutput.vanilla(
+                            ramBar.format(ramBar.getAllocated()),
+                            ramBar.format(ramBar.getUsed()),
+                            ramBar.format(ramBar.getXmx()),
+                            ramBar.format(ramBar.getXms()),
+                            Component.text(((int) (ramBar.getPercent() * 100)) + "%")
+                    ), false);
                     return 1;
                 })
         );
@@ -1,14 +1,12 @@
 package org.purpurmc.purpur.command;
 
 import com.mojang.brigadier.CommandDispatcher;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.permissions.Permissions;
 import org.purpurmc.purpur.PurpurConfig;
+import org.purpurmc.purpur.message.PurpurMessages;
 
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -34,8 +32,7 @@ public class UptimeCommand {
         data.hide = false; // never hide seconds
         process(data, "<seconds>", PurpurConfig.uptimeSecond, PurpurConfig.uptimeSeconds, TimeUnit.SECONDS, TimeUnit.MILLISECONDS::toSeconds);
 
-        Component output = MiniMessage.miniMessage().deserialize(PurpurConfig.uptimeCommandOutput, Placeholder.unparsed("uptime", data.format));
-        sender.sendSuccess(output, false);
+        sender.sendSuccess(PurpurMessages.uptimeCommandOutput.renderText(data.format), false);
         return 1;
     }
 
@@ -1,5 +1,6 @@
 package org.purpurmc.purpur.controller;
 
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.ai.attributes.Attributes;
@@ -83,7 +84,7 @@ public class MoveControllerWASD extends MoveControl {
     }
 
     public static boolean spacebarEvent(Mob entity) {
-        if (RidableSpacebarEvent.getHandlerList().getRegisteredListeners().length > 0) {
+        if (entity.level() instanceof ServerLevel level && level.hasRidableSpacebarEvent) {
             return new RidableSpacebarEvent(entity.getBukkitEntity()).callEvent();
         } else {
             return true;
@@ -0,0 +1,68 @@
+package org.purpurmc.purpur.controller;
+
+import net.minecraft.world.entity.Mob;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.purpurmc.purpur.event.entity.RidableMoveEvent;
+
+/**
+ * Fires {@link RidableMoveEvent} for one ridden mob. The event and both of its locations are created on the first
+ * move and reused for every move after that, so riding doesn't allocate per tick.
+ */
+public final class RidableMoveDispatcher {
+    private final Mob mob;
+    private final Location from;
+    private final Location to;
+    private RidableMoveEvent event;
+
+    private RidableMoveDispatcher(Mob mob) {
+        this.mob = mob;
+        this.from = new Location(null, 0.0D, 0.0D, 0.0D);
+        this.to = new Location(null, 0.0D, 0.0D, 0.0D);
+    }
+
+    public static void dispatch(Mob mob, Player rider) {
+        RidableMoveDispatcher dispatcher = mob.ridableMoveDispatcher;
+        if (dispatcher == null) {
+            dispatcher = mob.ridableMoveDispatcher = new RidableMoveDispatcher(mob);
+        }
+        dispatcher.dispatch(rider);
+    }
+
+    private void dispatch(Player rider) {
+        Mob mob = this.mob;
+        World world = mob.level().getWorld();
+        set(this.from, world, mob.xo, mob.yo, mob.zo, mob.yRotO, mob.xRotO);
+        set(this.to, world, mob.getX(), mob.getY(), mob.getZ(), mob.getYRot(), mob.getXRot());
+
+        RidableMoveEvent event = this.event;
+        if (event == null) {
+            event = this.event = new RidableMoveEvent((org.bukkit.entity.Mob) mob.getBukkitLivingEntity(), rider, this.from, this.to);
+        } else {
+            event.reset(rider, this.from, this.to);
+        }
+
+        if (!event.callEvent()) {
+            mob.absSnapTo(this.from.getX(), this.from.getY(), this.from.getZ(), this.from.getYaw(), this.from.getPitch());
+            return;
+        }
+        // compare against the mob instead of a copy of the destination, listeners may have changed it in place
+        Location to = event.getTo();
+        if (to.getX() != mob.getX() || to.getY() != mob.getY() || to.getZ() != mob.getZ() || to.getYaw() != mob.getYRot() || to.getPitch() != mob.getXRot()) {
+            mob.absSnapTo(to.getX(), to.getY(), to.getZ(), to.getYaw(), to.getPitch());
+        }
+    }
+
+    private static void set(Location location, World world, double x, double y, double z, float yaw, float pitch) {
+        if (!location.isWorldLoaded() || location.getWorld() != world) {
+            // setWorld allocates a weak reference, only do it when the mob changed worlds
+            location.setWorld(world);
+        }
+        location.setX(x);
+        location.setY(y);
+        location.setZ(z);
+        location.setYaw(yaw);
+        location.setPitch(pitch);
+    }
+}
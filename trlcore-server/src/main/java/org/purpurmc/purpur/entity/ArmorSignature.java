@@ -0,0 +1,61 @@
+package org.purpurmc.purpur.entity;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.Items;
+
+/**
+ * A bitmask of the armor an entity wears, four bits per armor slot holding the material of the piece in it, so
+ * features can check for armor sets with a single comparison instead of looking at every slot.
+ */
+public final class ArmorSignature {
+    public static final int NONE = 0;
+    public static final int LEATHER = 1;
+    public static final int CHAINMAIL = 2;
+    public static final int IRON = 3;
+    public static final int GOLD = 4;
+    public static final int DIAMOND = 5;
+    public static final int NETHERITE = 6;
+    public static final int TURTLE = 7;
+    public static final int OTHER = 15;
+
+    public static final int FULL_NETHERITE = fullSet(NETHERITE);
+
+    private static final EquipmentSlot[] SLOTS = {EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET};
+    private static final Reference2IntOpenHashMap<Item> MATERIALS = new Reference2IntOpenHashMap<>();
+
+    static {
+        MATERIALS.defaultReturnValue(OTHER);
+        MATERIALS.put(Items.AIR, NONE);
+        put(LEATHER, Items.LEATHER_HELMET, Items.LEATHER_CHESTPLATE, Items.LEATHER_LEGGINGS, Items.LEATHER_BOOTS);
+        put(CHAINMAIL, Items.CHAINMAIL_HELMET, Items.CHAINMAIL_CHESTPLATE, Items.CHAINMAIL_LEGGINGS, Items.CHAINMAIL_BOOTS);
+        put(IRON, Items.IRON_HELMET, Items.IRON_CHESTPLATE, Items.IRON_LEGGINGS, Items.IRON_BOOTS);
+        put(GOLD, Items.GOLDEN_HELMET, Items.GOLDEN_CHESTPLATE, Items.GOLDEN_LEGGINGS, Items.GOLDEN_BOOTS);
+        put(DIAMOND, Items.DIAMOND_HELMET, Items.DIAMOND_CHESTPLATE, Items.DIAMOND_LEGGINGS, Items.DIAMOND_BOOTS);
+        put(NETHERITE, Items.NETHERITE_HELMET, Items.NETHERITE_CHESTPLATE, Items.NETHERITE_LEGGINGS, Items.NETHERITE_BOOTS);
+        put(TURTLE, Items.TURTLE_HELMET);
+    }
+
+    private ArmorSignature() {
+    }
+
+    private static void put(int material, Item... items) {
+        for (Item item : items) {
+            MATERIALS.put(item, material);
+        }
+    }
+
+    public static int compute(LivingEntity entity) {
+        int signature = 0;
+        for (int i = 0; i < SLOTS.length; i++) {
+            signature |= MATERIALS.getInt(entity.getItemBySlot(SLOTS[i]).getItem()) << (i * 4);
+        }
+        return signature;
+    }
+
+    private static int fullSet(int material) {
+        return material | material << 4 | material << 8 | material << 12;
+    }
+}
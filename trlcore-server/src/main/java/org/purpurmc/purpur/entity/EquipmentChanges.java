@@ -0,0 +1,70 @@
+package org.purpurmc.purpur.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.item.ItemStack;
+import org.purpurmc.purpur.task.CompassTask;
+import org.purpurmc.purpur.task.NetheriteFireResistanceTask;
+
+/**
+ * Reacts to equipment changes. The entity already compares its equipment against the last tick to send equipment
+ * updates, so features hooked in here only run when something actually changed, instead of polling every player.
+ * <p>
+ * Players keep an {@link ArmorSignature} that is recomputed when an armor slot changes. Features interested in
+ * armor sets register an {@link ArmorReaction} and compare signatures.
+ */
+public final class EquipmentChanges {
+    private static final List<ArmorReaction> armorReactions = new ArrayList<>(List.of(
+            NetheriteFireResistanceTask.instance()::onArmorChange
+    ));
+
+    private EquipmentChanges() {
+    }
+
+    /**
+     * Registers a reaction to armor signature changes of players. Must be called on the main thread.
+     */
+    public static void registerArmorReaction(ArmorReaction reaction) {
+        armorReactions.add(reaction);
+    }
+
+    /**
+     * Called on the main thread with the slots that changed since the last tick and their new items.
+     */
+    public static void onChange(LivingEntity entity, Map<EquipmentSlot, ItemStack> changes) {
+        if (!(entity instanceof ServerPlayer player)) {
+            return;
+        }
+        boolean heldItemChanged = false;
+        boolean armorChanged = false;
+        for (EquipmentSlot slot : changes.keySet()) {
+            if (slot.getType() == EquipmentSlot.Type.HAND) {
+                heldItemChanged = true;
+            } else if (slot.getType() == EquipmentSlot.Type.HUMANOID_ARMOR) {
+                armorChanged = true;
+            }
+        }
+        if (heldItemChanged) {
+            CompassTask.instance().onHeldItemChange(player);
+        }
+        if (armorChanged) {
+            int oldSignature = player.armorSignature;
+            int newSignature = ArmorSignature.compute(player);
+            if (oldSignature != newSignature) {
+                player.armorSignature = newSignature;
+                for (ArmorReaction reaction : armorReactions) {
+                    reaction.onArmorChange(player, oldSignature, newSignature);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface ArmorReaction {
+        void onArmorChange(ServerPlayer player, int oldSignature, int newSignature);
+    }
+}
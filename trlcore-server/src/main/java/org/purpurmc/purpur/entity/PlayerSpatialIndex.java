@@ -0,0 +1,347 @@
+package org.purpurmc.purpur.entity;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.player.Player;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A grid of the players in a level, so nearest player and nearby player queries only look at players in cells
+ * close to the position instead of every player in the level.
+ * <p>
+ * Cells are 32 blocks wide columns. Players in a cell are split by game mode and AFK state, and queries pass the
+ * partitions they care about, so players they would reject are never looked at. Queries still test their
+ * predicate on every candidate. The index is updated once per tick before mob spawning, when players join or leave
+ * the level, and when a player goes AFK or comes back, changes game mode or teleports.
+ * <p>
+ * Only used on the main thread, queries from other threads scan the player list like vanilla.
+ */
+public final class PlayerSpatialIndex {
+    public static final int SURVIVAL = 1;
+    public static final int CREATIVE = 1 << 1;
+    public static final int SURVIVAL_AFK = 1 << 2;
+    public static final int CREATIVE_AFK = 1 << 3;
+    public static final int SPECTATOR = 1 << 4;
+
+    public static final int NOT_SPECTATOR = SURVIVAL | CREATIVE | SURVIVAL_AFK | CREATIVE_AFK;
+    public static final int NOT_CREATIVE_OR_SPECTATOR = SURVIVAL | SURVIVAL_AFK;
+    public static final int NOT_AFK_OR_SPECTATOR = SURVIVAL | CREATIVE;
+    public static final int ANY = NOT_SPECTATOR | SPECTATOR;
+
+    private static final int PARTITIONS = 5;
+    private static final int CELL_SHIFT = 5;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final ServerLevel level;
+    private final Long2ObjectOpenHashMap<Cell> cells = new Long2ObjectOpenHashMap<>();
+    private final Reference2ObjectOpenHashMap<ServerPlayer, Entry> entries = new Reference2ObjectOpenHashMap<>();
+    private volatile boolean dirty = true;
+    private int stamp;
+
+    public PlayerSpatialIndex(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Makes the index re-read the state of every player before the next query.
+     */
+    public void markDirty() {
+        this.dirty = true;
+    }
+
+    /**
+     * Files every player of the level under its current cell and partition. Called on the main thread.
+     */
+    public void update() {
+        this.dirty = false;
+        int stamp = ++this.stamp;
+        List<ServerPlayer> players = this.level.players();
+        for (int i = 0, size = players.size(); i < size; i++) {
+            ServerPlayer player = players.get(i);
+            Entry entry = this.entries.get(player);
+            if (entry == null) {
+                entry = new Entry(player);
+                this.entries.put(player, entry);
+            }
+            entry.stamp = stamp;
+            long cell = cellKey(cellCoord(player.getX()), cellCoord(player.getZ()));
+            int partition = partition(player);
+            if (entry.partition != partition || entry.cell != cell) {
+                this.unfile(entry);
+                this.file(entry, cell, partition);
+            }
+        }
+        if (this.entries.size() != players.size()) {
+            Iterator<Entry> iterator = this.entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.stamp != stamp) {
+                    this.unfile(entry);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the nearest player that is in one of the given partitions and matches the predicate.
+     *
+     * @param distance the maximum distance, or a negative value for no limit
+     */
+    public @Nullable Player nearest(double x, double y, double z, double distance, int partitions, @Nullable Predicate<Entity> predicate) {
+        if (!Bukkit.isPrimaryThread()) {
+            return this.scanNearest(this.level.players(), x, y, z, distance, predicate);
+        }
+        this.ensureCurrent();
+        if (this.cells.isEmpty()) {
+            return null;
+        }
+        int cellX = cellCoord(x);
+        int cellZ = cellCoord(z);
+        int maxRing = distance < 0.0D ? Integer.MAX_VALUE : (int) Math.ceil(distance / CELL_SIZE);
+        Player nearest = null;
+        double nearestDistance = distance < 0.0D ? Double.MAX_VALUE : distance * distance;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ring > 0) {
+                // no cell in this ring can hold anything closer than what was found
+                double ringDistance = (double) (ring - 1) * CELL_SIZE;
+                if (ringDistance * ringDistance >= nearestDistance) {
+                    return nearest;
+                }
+            }
+            if ((2L * ring + 1) * (2L * ring + 1) > this.cells.size()) {
+                // the ring is bigger than the populated part of the grid, looking at every cell is cheaper
+                Player found = this.scanCells(x, y, z, nearestDistance, partitions, predicate);
+                return found != null ? found : nearest;
+            }
+            for (int dx = -ring; dx <= ring; dx++) {
+                boolean edge = dx == -ring || dx == ring;
+                for (int dz = -ring; dz <= ring; dz += edge ? 1 : 2 * ring) {
+                    Cell cell = this.cells.get(cellKey(cellX + dx, cellZ + dz));
+                    if (cell == null || (cell.mask & partitions) == 0) {
+                        continue;
+                    }
+                    Player found = cell.nearest(x, y, z, nearestDistance, partitions, predicate);
+                    if (found != null) {
+                        nearest = found;
+                        nearestDistance = found.distanceToSqr(x, y, z);
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Checks if any player in one of the given partitions that matches the predicate is within the distance.
+     *
+     * @param distance the maximum distance, or a negative value for no limit
+     */
+    public boolean anyWithin(double x, double y, double z, double distance, int partitions, Predicate<? super Player> predicate) {
+        if (!Bukkit.isPrimaryThread()) {
+            return this.scanAny(this.level.players(), x, y, z, distance, predicate);
+        }
+        this.ensureCurrent();
+        if (this.cells.isEmpty()) {
+            return false;
+        }
+        double distanceSqr = distance < 0.0D ? Double.MAX_VALUE : distance * distance;
+        int radius = distance < 0.0D ? Integer.MAX_VALUE : (int) Math.ceil(distance / CELL_SIZE);
+        if (radius >= 1 << 15 || (2L * radius + 1) * (2L * radius + 1) > this.cells.size()) {
+            for (Cell cell : this.cells.values()) {
+                if ((cell.mask & partitions) != 0 && cell.any(x, y, z, distanceSqr, partitions, predicate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int cellX = cellCoord(x);
+        int cellZ = cellCoord(z);
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                Cell cell = this.cells.get(cellKey(cellX + dx, cellZ + dz));
+                if (cell != null && (cell.mask & partitions) != 0 && cell.any(x, y, z, distanceSqr, partitions, predicate)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void ensureCurrent() {
+        if (this.dirty || this.entries.size() != this.level.players().size()) {
+            this.update();
+        }
+    }
+
+    private @Nullable Player scanCells(double x, double y, double z, double nearestDistance, int partitions, @Nullable Predicate<Entity> predicate) {
+        Player nearest = null;
+        for (Cell cell : this.cells.values()) {
+            if ((cell.mask & partitions) == 0) {
+                continue;
+            }
+            Player found = cell.nearest(x, y, z, nearestDistance, partitions, predicate);
+            if (found != null) {
+                nearest = found;
+                nearestDistance = found.distanceToSqr(x, y, z);
+            }
+        }
+        return nearest;
+    }
+
+    private @Nullable Player scanNearest(List<? extends Player> players, double x, double y, double z, double distance, @Nullable Predicate<Entity> predicate) {
+        Player nearest = null;
+        double nearestDistance = distance < 0.0D ? Double.MAX_VALUE : distance * distance;
+        for (Player player : players) {
+            if (predicate == null || predicate.test(player)) {
+                double d = player.distanceToSqr(x, y, z);
+                if (d < nearestDistance) {
+                    nearest = player;
+                    nearestDistance = d;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    private boolean scanAny(List<? extends Player> players, double x, double y, double z, double distance, Predicate<? super Player> predicate) {
+        for (Player player : players) {
+            if (predicate.test(player) && (distance < 0.0D || player.distanceToSqr(x, y, z) < distance * distance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void file(Entry entry, long cellKey, int partition) {
+        Cell cell = this.cells.get(cellKey);
+        if (cell == null) {
+            cell = new Cell(this.level);
+            this.cells.put(cellKey, cell);
+        }
+        cell.add(entry.player, partition);
+        entry.cell = cellKey;
+        entry.partition = partition;
+    }
+
+    private void unfile(Entry entry) {
+        if (entry.partition == 0) {
+            return;
+        }
+        Cell cell = this.cells.get(entry.cell);
+        if (cell != null && cell.remove(entry.player, entry.partition)) {
+            this.cells.remove(entry.cell);
+        }
+        entry.partition = 0;
+    }
+
+    private static int partition(ServerPlayer player) {
+        if (player.isSpectator()) {
+            return SPECTATOR;
+        }
+        boolean creative = player.isCreative();
+        if (player.isAfk()) {
+            return creative ? CREATIVE_AFK : SURVIVAL_AFK;
+        }
+        return creative ? CREATIVE : SURVIVAL;
+    }
+
+    private static int cellCoord(double coord) {
+        return (int) Math.floor(coord) >> CELL_SHIFT;
+    }
+
+    private static long cellKey(int x, int z) {
+        return (long) x & 0xFFFFFFFFL | ((long) z & 0xFFFFFFFFL) << 32;
+    }
+
+    private static final class Entry {
+        private final ServerPlayer player;
+        private long cell;
+        private int partition;
+        private int stamp;
+
+        private Entry(ServerPlayer player) {
+            this.player = player;
+        }
+    }
+
+    private static final class Cell {
+        private final ServerLevel level;
+        @SuppressWarnings("unchecked")
+        private final ObjectArrayList<ServerPlayer>[] players = new ObjectArrayList[PARTITIONS];
+        private int mask;
+
+        private Cell(ServerLevel level) {
+            this.level = level;
+        }
+
+        private void add(ServerPlayer player, int partition) {
+            int index = Integer.numberOfTrailingZeros(partition);
+            ObjectArrayList<ServerPlayer> list = this.players[index];
+            if (list == null) {
+                list = this.players[index] = new ObjectArrayList<>(2);
+            }
+            list.add(player);
+            this.mask |= partition;
+        }
+
+        /**
+         * Returns true if the cell is empty afterward.
+         */
+        private boolean remove(ServerPlayer player, int partition) {
+            ObjectArrayList<ServerPlayer> list = this.players[Integer.numberOfTrailingZeros(partition)];
+            if (list != null && list.remove(player) && list.isEmpty()) {
+                this.mask &= ~partition;
+            }
+            return this.mask == 0;
+        }
+
+        private @Nullable Player nearest(double x, double y, double z, double nearestDistance, int partitions, @Nullable Predicate<Entity> predicate) {
+            Player nearest = null;
+            int mask = this.mask & partitions;
+            while (mask != 0) {
+                int index = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                ObjectArrayList<ServerPlayer> list = this.players[index];
+                for (int i = 0, size = list.size(); i < size; i++) {
+                    ServerPlayer player = list.get(i);
+                    double d = player.distanceToSqr(x, y, z);
+                    if (d < nearestDistance && this.isHere(player) && (predicate == null || predicate.test(player))) {
+                        nearest = player;
+                        nearestDistance = d;
+                    }
+                }
+            }
+            return nearest;
+        }
+
+        // players that left the level are only dropped on the next update
+        private boolean isHere(ServerPlayer player) {
+            return !player.isRemoved() && player.level() == this.level;
+        }
+
+        private boolean any(double x, double y, double z, double distanceSqr, int partitions, Predicate<? super Player> predicate) {
+            int mask = this.mask & partitions;
+            while (mask != 0) {
+                int index = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                ObjectArrayList<ServerPlayer> list = this.players[index];
+                for (int i = 0, size = list.size(); i < size; i++) {
+                    ServerPlayer player = list.get(i);
+                    if (player.distanceToSqr(x, y, z) < distanceSqr && this.isHere(player) && predicate.test(player)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
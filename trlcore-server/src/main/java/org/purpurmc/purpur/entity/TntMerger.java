@@ -0,0 +1,121 @@
+package org.purpurmc.purpur.entity;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.Map;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.PrimedTnt;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * Merges primed TNT that would move and explode exactly alike into one entity, so cannons firing stacks of TNT
+ * tick a single entity per stack.
+ * <p>
+ * Before a primed TNT ticks, its position, motion and fuse are compared with the TNT that already ticked this tick.
+ * If one of them started the tick in the same state, with the same owner, block, power and fire, it has already
+ * moved where this one would, so this one is added to its count and removed. Only an explosion going off between
+ * the two ticks, pushing the TNT from slightly different spots, makes the merged TNT end up somewhere else than the
+ * second one would have.
+ * <p>
+ * The merged TNT explodes once, weighted by its count. The blocks are those of as many explosions going off one
+ * after the other at the same spot, each going through the blocks the earlier ones destroyed, see
+ * {@link org.purpurmc.purpur.util.ParallelExplosionRays#calculateMerged}. The knockback every entity and player got
+ * is multiplied by the count, which is what the separate explosions add up to as long as none of them destroys a
+ * block shielding an entity from the later ones. Damage is dealt once, like the invulnerability after the first hit
+ * does for living entities hit by explosions in the same tick. Fire, drops and the prime and explode events happen
+ * once for the whole stack.
+ * <p>
+ * Only used on the main thread.
+ */
+public final class TntMerger {
+    private final ServerLevel level;
+    private final Long2ObjectOpenHashMap<Entry> ticked = new Long2ObjectOpenHashMap<>();
+    private long tick = Long.MIN_VALUE;
+
+    public TntMerger(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Called before a primed TNT ticks
+     *
+     * @return true if the TNT was merged into another and must not tick
+     */
+    public boolean merge(PrimedTnt tnt) {
+        long now = this.level.getGameTime();
+        if (now != this.tick) {
+            this.tick = now;
+            this.ticked.clear();
+        }
+        Vec3 pos = tnt.position();
+        Vec3 motion = tnt.getDeltaMovement();
+        int fuse = tnt.getFuse();
+        long key = HashCommon.mix(Double.doubleToLongBits(pos.x))
+            ^ HashCommon.mix(Double.doubleToLongBits(pos.y) * 31)
+            ^ HashCommon.mix(Double.doubleToLongBits(pos.z) * 961)
+            ^ HashCommon.mix(Double.doubleToLongBits(motion.x) + Double.doubleToLongBits(motion.y) * 31 + Double.doubleToLongBits(motion.z) * 961)
+            ^ fuse;
+        Entry entry = this.ticked.get(key);
+        if (entry != null && entry.matches(tnt, pos, motion, fuse)) {
+            entry.tnt.mergedCount += tnt.mergedCount;
+            tnt.discard(org.bukkit.event.entity.EntityRemoveEvent.Cause.MERGE);
+            return true;
+        }
+        this.ticked.put(key, new Entry(tnt, pos, motion, fuse));
+        return false;
+    }
+
+    /**
+     * Called before a merged TNT's explosion hurts the entities around it
+     *
+     * @return the motion of the entities the explosion can push
+     */
+    public static Map<Entity, Vec3> motionBefore(ServerLevel level, Vec3 center, float radius) {
+        // the box ServerExplosion#hurtEntities looks for entities in
+        float reach = radius * 2.0F;
+        AABB box = new AABB(
+            Mth.floor(center.x - reach - 1.0D), Mth.floor(center.y - reach - 1.0D), Mth.floor(center.z - reach - 1.0D),
+            Mth.floor(center.x + reach + 1.0D), Mth.floor(center.y + reach + 1.0D), Mth.floor(center.z + reach + 1.0D)
+        );
+        Map<Entity, Vec3> motion = new Reference2ObjectOpenHashMap<>();
+        for (Entity entity : level.getEntities((Entity) null, box)) {
+            motion.put(entity, entity.getDeltaMovement());
+        }
+        return motion;
+    }
+
+    /**
+     * Called after a merged TNT's explosion hurt the entities around it, repeats the knockback it dealt for the
+     * other merged TNT
+     */
+    public static void repeatKnockback(Map<Entity, Vec3> motionBefore, Map<Player, Vec3> hitPlayers, int count) {
+        for (Map.Entry<Entity, Vec3> entry : motionBefore.entrySet()) {
+            Entity entity = entry.getKey();
+            Vec3 knockback = entity.getDeltaMovement().subtract(entry.getValue());
+            if (!entity.isRemoved() && knockback.lengthSqr() > 0.0D) {
+                entity.push(knockback.scale(count - 1));
+            }
+        }
+        // players move themselves, they are sent the knockback of every explosion
+        hitPlayers.replaceAll((player, knockback) -> knockback.scale(count));
+    }
+
+    private record Entry(PrimedTnt tnt, Vec3 pos, Vec3 motion, int fuse) {
+        private boolean matches(PrimedTnt other, Vec3 pos, Vec3 motion, int fuse) {
+            return this.tnt != other
+                && !this.tnt.isRemoved()
+                && this.fuse == fuse
+                && this.pos.equals(pos)
+                && this.motion.equals(motion)
+                && this.tnt.getOwner() == other.getOwner()
+                && this.tnt.getBlockState() == other.getBlockState()
+                && this.tnt.explosionPower == other.explosionPower
+                && this.tnt.isIncendiary == other.isIncendiary;
+        }
+    }
+}
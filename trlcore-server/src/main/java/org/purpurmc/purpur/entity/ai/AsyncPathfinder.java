@@ -0,0 +1,338 @@
+package org.purpurmc.purpur.entity.ai;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.PathNavigationRegion;
+import net.minecraft.world.level.pathfinder.Path;
+import net.minecraft.world.level.pathfinder.PathFinder;
+import net.minecraft.world.phys.Vec3;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+import org.purpurmc.purpur.PurpurConfig;
+import org.purpurmc.purpur.PurpurWorldConfig;
+
+/**
+ * Searches paths of mobs on worker threads.
+ * <p>
+ * When a mob of an opted in type asks for a path, the blocks around it are copied into a {@link PathRegionSnapshot}
+ * and the search runs on a worker while the caller gets no path for now. Finished searches are picked up on the next
+ * tick: a navigation that was told to move while its path was pending starts following it, otherwise the path is
+ * returned the next time the mob asks for a path to the same targets. A block change inside the copied region makes
+ * the result stale, and stale results are searched again synchronously.
+ * <p>
+ * A navigation's path finder isn't thread safe, so a mob has at most one search running and doesn't get any other
+ * path until it is done. Searches that don't fit in the queue are done synchronously. The mob state the search
+ * depends on is captured in the snapshot, see {@link #searching(Mob)}.
+ */
+public final class AsyncPathfinder {
+    // results the mob doesn't claim within this many ticks are dropped
+    private static final int CLAIM_TICKS = 20;
+    // larger regions are searched synchronously, copying them would cost more than the search
+    private static final int MAX_RADIUS = 48;
+    // nodes never get further than the follow range from the start, the node evaluator only looks at the blocks
+    // right next to a node beyond that, falls further down are covered by the section copied below the region
+    private static final int SEARCH_MARGIN = 2;
+
+    private static ThreadPoolExecutor executor;
+    private static int executorThreads;
+    private static int executorQueueSize;
+
+    private final ServerLevel level;
+    private final Queue<Request> completed = new ConcurrentLinkedQueue<>();
+    private final ObjectArrayList<Request> unclaimed = new ObjectArrayList<>();
+    private final Long2ObjectOpenHashMap<ObjectArrayList<Request>> byChunk = new Long2ObjectOpenHashMap<>();
+
+    public AsyncPathfinder(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Called by the navigation in place of searching the region itself.
+     *
+     * @param center the block the region is centered on
+     * @param radius the distance from the center to the edges of the region
+     * @return the path, or null if there is none or it is still being searched
+     */
+    public static @Nullable Path findPath(PathFinder pathFinder, PathNavigationRegion region, Mob mob, Set<BlockPos> targets, float followRange, int accuracy, float maxVisitedNodesMultiplier, BlockPos center, int radius) {
+        if (mob.asyncPathRequest == null && !isEnabled(mob)) {
+            return pathFinder.findPath(region, mob, targets, followRange, accuracy, maxVisitedNodesMultiplier);
+        }
+        return ((ServerLevel) mob.level()).asyncPathfinder.request(pathFinder, region, mob, targets, followRange, accuracy, maxVisitedNodesMultiplier, center, radius);
+    }
+
+    /**
+     * Called by the navigation when it is told to move along no path, remembering the speed to move at once the
+     * pending path is found.
+     */
+    public static void deferMove(Mob mob, double speed) {
+        Request request = mob.asyncPathRequest;
+        if (request != null && !request.done && !request.superseded) {
+            request.speed = speed;
+        }
+    }
+
+    /**
+     * Returns the snapshot the mob is being searched in when called from the search on a worker thread. Reads of
+     * mob state the search depends on go through it, so the search sees the mob as it was when it was requested.
+     */
+    public static @Nullable PathRegionSnapshot searching(Mob mob) {
+        if (Thread.currentThread() instanceof Worker worker) {
+            PathRegionSnapshot snapshot = worker.snapshot;
+            if (snapshot != null && snapshot.mob == mob) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The navigation pads the region it searches in for the targets, the search itself doesn't leave the follow range.
+     */
+    static int searchRadius(int radius, float followRange) {
+        return Math.min(radius, Mth.ceil(followRange) + SEARCH_MARGIN);
+    }
+
+    private static boolean isEnabled(Mob mob) {
+        PurpurWorldConfig config = mob.level().purpurConfig;
+        return config.asyncPathfindingEnabled && config.asyncPathfindingEntities.contains(mob.getType());
+    }
+
+    private @Nullable Path request(PathFinder pathFinder, PathNavigationRegion region, Mob mob, Set<BlockPos> targets, float followRange, int accuracy, float maxVisitedNodesMultiplier, BlockPos center, int radius) {
+        Request request = mob.asyncPathRequest;
+        if (request != null) {
+            if (!request.done) {
+                // the path finder is still in use
+                if (!request.matches(targets, followRange, accuracy)) {
+                    request.superseded = true;
+                }
+                return null;
+            }
+            this.remove(request);
+            if (!request.superseded && request.matches(targets, followRange, accuracy)) {
+                return this.claim(request, region);
+            }
+        }
+        int searchRadius = searchRadius(radius, followRange);
+        if (!isEnabled(mob) || searchRadius > MAX_RADIUS) {
+            return pathFinder.findPath(region, mob, targets, followRange, accuracy, maxVisitedNodesMultiplier);
+        }
+
+        BlockPos from = center.offset(-searchRadius, -searchRadius, -searchRadius);
+        BlockPos to = center.offset(searchRadius, searchRadius, searchRadius);
+        request = new Request(this, pathFinder, new PathRegionSnapshot(this.level, mob, from, to), mob, Set.copyOf(targets), followRange, accuracy, maxVisitedNodesMultiplier, from, to);
+        try {
+            executor().execute(request);
+        } catch (RejectedExecutionException e) {
+            return pathFinder.findPath(region, mob, targets, followRange, accuracy, maxVisitedNodesMultiplier);
+        }
+        mob.asyncPathRequest = request;
+        for (int x = from.getX() >> 4; x <= to.getX() >> 4; x++) {
+            for (int z = from.getZ() >> 4; z <= to.getZ() >> 4; z++) {
+                this.byChunk.computeIfAbsent(ChunkPos.asLong(x, z), key -> new ObjectArrayList<>()).add(request);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands finished searches over to their mobs. Must be called once per tick on the main thread.
+     */
+    public void tick() {
+        long now = this.level.getGameTime();
+        Request request;
+        while ((request = this.completed.poll()) != null) {
+            Mob mob = request.mob;
+            if (mob.asyncPathRequest != request) {
+                // claimed already
+                continue;
+            }
+            if (mob.isRemoved() || request.superseded) {
+                this.remove(request);
+                continue;
+            }
+            if (!Double.isNaN(request.speed) && mob.getNavigation().isDone()) {
+                this.remove(request);
+                Path path = this.claim(request, new PathNavigationRegion(this.level, request.from, request.to));
+                if (path != null) {
+                    mob.getNavigation().moveTo(path, request.speed);
+                }
+                continue;
+            }
+            request.completedTick = now;
+            this.unclaimed.add(request);
+        }
+
+        if (!this.unclaimed.isEmpty()) {
+            Iterator<Request> iterator = this.unclaimed.iterator();
+            while (iterator.hasNext()) {
+                request = iterator.next();
+                if (request.mob.asyncPathRequest != request) {
+                    iterator.remove();
+                } else if (now - request.completedTick > CLAIM_TICKS || request.mob.isRemoved()) {
+                    this.remove(request);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the searches whose region contains the block as stale. Must be called on the main thread.
+     */
+    public void invalidate(BlockPos pos) {
+        if (this.byChunk.isEmpty()) {
+            return;
+        }
+        ObjectArrayList<Request> requests = this.byChunk.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        if (requests == null) {
+            return;
+        }
+        for (int i = 0, size = requests.size(); i < size; i++) {
+            Request request = requests.get(i);
+            if (request.contains(pos)) {
+                request.stale = true;
+            }
+        }
+    }
+
+    private @Nullable Path claim(Request request, PathNavigationRegion region) {
+        if (request.failure != null || request.stale) {
+            return request.pathFinder.findPath(region, request.mob, request.targets, request.followRange, request.accuracy, request.maxVisitedNodesMultiplier);
+        }
+        if (this.level.purpurConfig.asyncPathfindingVerify && request.mob.position().equals(request.mobPosition)) {
+            Path expected = request.pathFinder.findPath(region, request.mob, request.targets, request.followRange, request.accuracy, request.maxVisitedNodesMultiplier);
+            boolean same = expected == null ? request.path == null : expected.sameAs(request.path);
+            if (!same) {
+                Bukkit.getLogger().warning("Async path of " + EntityType.getKey(request.mob.getType()) + " at " + request.mob.blockPosition().toShortString()
+                    + " differs from the synchronous path: " + describe(request.path) + " instead of " + describe(expected));
+            }
+        }
+        return request.path;
+    }
+
+    private static String describe(@Nullable Path path) {
+        return path == null ? "no path" : path.getNodeCount() + " nodes to " + path.getTarget().toShortString();
+    }
+
+    private void remove(Request request) {
+        if (request.mob.asyncPathRequest == request) {
+            request.mob.asyncPathRequest = null;
+        }
+        for (int x = request.from.getX() >> 4; x <= request.to.getX() >> 4; x++) {
+            for (int z = request.from.getZ() >> 4; z <= request.to.getZ() >> 4; z++) {
+                long key = ChunkPos.asLong(x, z);
+                ObjectArrayList<Request> requests = this.byChunk.get(key);
+                if (requests != null && requests.remove(request) && requests.isEmpty()) {
+                    this.byChunk.remove(key);
+                }
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor executor() {
+        int threads = Math.max(1, PurpurConfig.asyncPathfindingThreads);
+        int queueSize = Math.max(1, PurpurConfig.asyncPathfindingQueueSize);
+        if (executor == null || executorThreads != threads || executorQueueSize != queueSize) {
+            if (executor != null) {
+                // running searches still finish and are handed over
+                executor.shutdown();
+            }
+            executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), new ThreadFactoryBuilder()
+                .setThreadFactory(Worker::new)
+                .setNameFormat("Purpur Async Pathfinding #%d")
+                .setDaemon(true)
+                .setUncaughtExceptionHandler((thread, throwable) -> Bukkit.getLogger().log(Level.SEVERE, "Uncaught exception in " + thread.getName(), throwable))
+                .build());
+            executor.allowCoreThreadTimeOut(true);
+            executorThreads = threads;
+            executorQueueSize = queueSize;
+        }
+        return executor;
+    }
+
+    public static final class Request implements Runnable {
+        private final AsyncPathfinder owner;
+        private final PathFinder pathFinder;
+        private final Mob mob;
+        private final Vec3 mobPosition;
+        private final Set<BlockPos> targets;
+        private final float followRange;
+        private final int accuracy;
+        private final float maxVisitedNodesMultiplier;
+        private final BlockPos from;
+        private final BlockPos to;
+        private PathRegionSnapshot snapshot;
+        private @Nullable Path path;
+        private @Nullable Throwable failure;
+        private volatile boolean done;
+        private boolean stale;
+        private boolean superseded;
+        private double speed = Double.NaN;
+        private long completedTick;
+
+        private Request(AsyncPathfinder owner, PathFinder pathFinder, PathRegionSnapshot snapshot, Mob mob, Set<BlockPos> targets, float followRange, int accuracy, float maxVisitedNodesMultiplier, BlockPos from, BlockPos to) {
+            this.owner = owner;
+            this.pathFinder = pathFinder;
+            this.snapshot = snapshot;
+            this.mob = mob;
+            this.mobPosition = mob.position();
+            this.targets = targets;
+            this.followRange = followRange;
+            this.accuracy = accuracy;
+            this.maxVisitedNodesMultiplier = maxVisitedNodesMultiplier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+            Worker worker = (Worker) Thread.currentThread();
+            worker.snapshot = this.snapshot;
+            try {
+                this.path = this.pathFinder.findPath(this.snapshot, this.mob, this.targets, this.followRange, this.accuracy, this.maxVisitedNodesMultiplier);
+            } catch (Throwable throwable) {
+                // searched again synchronously when claimed
+                this.failure = throwable;
+            } finally {
+                worker.snapshot = null;
+                this.snapshot = null;
+                this.done = true;
+                this.owner.completed.add(this);
+            }
+        }
+
+        private boolean matches(Set<BlockPos> targets, float followRange, int accuracy) {
+            return this.accuracy == accuracy && this.followRange == followRange && this.targets.equals(targets);
+        }
+
+        private boolean contains(BlockPos pos) {
+            return pos.getX() >= this.from.getX() && pos.getX() <= this.to.getX()
+                && pos.getY() >= this.from.getY() && pos.getY() <= this.to.getY()
+                && pos.getZ() >= this.from.getZ() && pos.getZ() <= this.to.getZ();
+        }
+    }
+
+    private static final class Worker extends Thread {
+        private @Nullable PathRegionSnapshot snapshot;
+
+        private Worker(Runnable runnable) {
+            super(runnable);
+        }
+    }
+}
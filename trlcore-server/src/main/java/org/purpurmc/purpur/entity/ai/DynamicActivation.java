@@ -0,0 +1,76 @@
+package org.purpurmc.purpur.entity.ai;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.player.Player;
+import org.purpurmc.purpur.PurpurWorldConfig;
+
+/**
+ * Dynamic activation of brain. Mobs far away from players tick their brain and re-evaluate their goals less
+ * often, at an interval of {@code distanceSqr >> activation-dist-mod} ticks capped at {@code max-tick-freq}.
+ */
+public final class DynamicActivation {
+    private DynamicActivation() {
+    }
+
+    /**
+     * Lowers the tick interval of the entity to what the given player needs. Called from the activation range
+     * for every entity around every player, so the nearest player wins.
+     */
+    public static void update(Player player, Entity entity) {
+        if (!(entity instanceof Mob) || player.isAfk()) {
+            return;
+        }
+        PurpurWorldConfig config = entity.level().purpurConfig;
+        if (!config.dabEnabled || config.dabExcludedEntities.contains(entity.getType())) {
+            return;
+        }
+        int priority = priority(player.distanceToSqr(entity), config.dabStartDistanceSquared, config.dabActivationDistMod, config.dabMaxTickFreq);
+        if (entity.activatedPriorityTick != MinecraftServer.currentTick) {
+            entity.activatedPriorityTick = MinecraftServer.currentTick;
+            entity.activatedPriority = priority;
+        } else if (priority < entity.activatedPriority) {
+            entity.activatedPriority = priority;
+        }
+    }
+
+    /**
+     * Returns the number of ticks between brain ticks, 1 meaning every tick.
+     */
+    public static int priority(Entity entity) {
+        if (!(entity instanceof Mob)) {
+            return 1;
+        }
+        PurpurWorldConfig config = entity.level().purpurConfig;
+        if (!config.dabEnabled || config.dabExcludedEntities.contains(entity.getType())) {
+            return 1;
+        }
+        // nobody but afk players came close enough this tick
+        return entity.activatedPriorityTick == MinecraftServer.currentTick ? entity.activatedPriority : config.dabMaxTickFreq;
+    }
+
+    public static boolean shouldTick(LivingEntity entity) {
+        return shouldTick(priority(entity), entity.tickCount, entity.getId());
+    }
+
+    static int priority(double distanceSqr, int startDistanceSquared, int activationDistMod, int maxTickFreq) {
+        return distanceSqr > startDistanceSquared ? Math.max(1, Math.min((int) distanceSqr >> activationDistMod, maxTickFreq)) : 1;
+    }
+
+    static boolean shouldTick(int priority, int tickCount, int id) {
+        return priority <= 1 || (tickCount + id) % priority == 0;
+    }
+
+    public static boolean shouldTickBrain(LivingEntity entity) {
+        if (shouldTick(entity)) {
+            return true;
+        }
+        if (entity.level() instanceof ServerLevel level) {
+            level.skippedBrainTicks++;
+        }
+        return false;
+    }
+}
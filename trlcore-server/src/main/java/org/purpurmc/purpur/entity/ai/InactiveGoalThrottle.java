@@ -0,0 +1,35 @@
+package org.purpurmc.purpur.entity.ai;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.entity.Mob;
+import org.purpurmc.purpur.PurpurWorldConfig;
+import org.purpurmc.purpur.util.DegradationLadder;
+
+/**
+ * Throttles goal selection of mobs the activation range considers inactive. Instead of scanning every goal
+ * each third inactive tick, inactive mobs only do so once every configured interval, spread out by entity id
+ * so large farms don't all scan on the same tick.
+ * <p>
+ * While the {@link DegradationLadder} sheds load, the throttle applies regardless of the world setting and its
+ * interval is multiplied by the current stage.
+ */
+public final class InactiveGoalThrottle {
+    private InactiveGoalThrottle() {
+    }
+
+    /**
+     * @param mob the mob ticking inactively
+     * @param inactiveTick whether the goal selector would tick without the throttle
+     */
+    public static boolean shouldTick(Mob mob, boolean inactiveTick) {
+        PurpurWorldConfig config = mob.level().purpurConfig;
+        return shouldTick(mob.getId(), inactiveTick, config.inactiveGoalSelectorThrottle, config.inactiveGoalSelectorThrottleInterval, DegradationLadder.inactiveTickIntervalMultiplier(), MinecraftServer.currentTick);
+    }
+
+    static boolean shouldTick(int id, boolean inactiveTick, boolean enabled, int interval, int multiplier, int currentTick) {
+        if (!enabled && multiplier <= 1) {
+            return inactiveTick;
+        }
+        return (currentTick + id) % (interval * multiplier) == 0;
+    }
+}
@@ -0,0 +1,148 @@
+package org.purpurmc.purpur.entity.ai;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.PathNavigationRegion;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.pathfinder.PathType;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A copy of the block states of a region, taken on the main thread so paths can be searched on another thread.
+ * <p>
+ * Only the chunk sections the region overlaps (plus one above and below) are copied. Blocks in chunks that were not
+ * loaded read as void air, the same as through the live region, and block entities are never visible.
+ * <p>
+ * The state of the searching mob that changes while it ticks or is computed on demand (pathfinding maluses, step
+ * height and safe fall distance) is captured as well. While the search runs on a worker, the mob reads it from here
+ * instead of from itself, and malus changes the node evaluator makes for the search only land in this copy.
+ */
+public final class PathRegionSnapshot extends PathNavigationRegion {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final BlockState VOID_AIR = Blocks.VOID_AIR.defaultBlockState();
+    private static final PathType[] PATH_TYPES = PathType.values();
+
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int minSectionY;
+    private final int sizeX;
+    private final int sizeZ;
+    private final int sizeY;
+    private final boolean[] loaded;
+    private final PalettedContainer<BlockState>[] sections;
+    final Mob mob;
+    private final float[] pathfindingMalus;
+    private final float maxUpStep;
+    private final int maxFallDistance;
+
+    @SuppressWarnings("unchecked")
+    public PathRegionSnapshot(Level level, Mob mob, BlockPos from, BlockPos to) {
+        super(level, from, to);
+        this.mob = mob;
+        this.pathfindingMalus = new float[PATH_TYPES.length];
+        for (PathType type : PATH_TYPES) {
+            this.pathfindingMalus[type.ordinal()] = mob.getPathfindingMalus(type);
+        }
+        this.maxUpStep = mob.maxUpStep();
+        this.maxFallDistance = mob.getMaxFallDistance();
+        this.minChunkX = from.getX() >> 4;
+        this.minChunkZ = from.getZ() >> 4;
+        this.minSectionY = Math.max(level.getMinSectionY(), (from.getY() >> 4) - 1);
+        this.sizeX = (to.getX() >> 4) - this.minChunkX + 1;
+        this.sizeZ = (to.getZ() >> 4) - this.minChunkZ + 1;
+        this.sizeY = Math.max(0, Math.min(level.getMaxSectionY(), (to.getY() >> 4) + 1) - this.minSectionY + 1);
+        this.loaded = new boolean[this.sizeX * this.sizeZ];
+        this.sections = new PalettedContainer[this.sizeX * this.sizeZ * this.sizeY];
+
+        for (int z = 0; z < this.sizeZ; z++) {
+            for (int x = 0; x < this.sizeX; x++) {
+                LevelChunk chunk = level.getChunkIfLoaded(this.minChunkX + x, this.minChunkZ + z);
+                if (chunk == null) {
+                    continue;
+                }
+                this.loaded[z * this.sizeX + x] = true;
+                LevelChunkSection[] chunkSections = chunk.getSections();
+                for (int y = 0; y < this.sizeY; y++) {
+                    int index = this.minSectionY + y - level.getMinSectionY();
+                    if (index < 0 || index >= chunkSections.length) {
+                        continue;
+                    }
+                    LevelChunkSection section = chunkSections[index];
+                    if (section != null && !section.hasOnlyAir()) {
+                        this.sections[(y * this.sizeZ + z) * this.sizeX + x] = section.getStates().copy();
+                    }
+                }
+            }
+        }
+    }
+
+    public float getPathfindingMalus(PathType type) {
+        return this.pathfindingMalus[type.ordinal()];
+    }
+
+    public void setPathfindingMalus(PathType type, float malus) {
+        this.pathfindingMalus[type.ordinal()] = malus;
+    }
+
+    public float maxUpStep() {
+        return this.maxUpStep;
+    }
+
+    public int getMaxFallDistance() {
+        return this.maxFallDistance;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        BlockState state = this.getBlockStateIfLoaded(pos);
+        return state == null ? VOID_AIR : state;
+    }
+
+    @Override
+    public @Nullable BlockState getBlockStateIfLoaded(BlockPos pos) {
+        int y = pos.getY();
+        if (this.isOutsideBuildHeight(y)) {
+            return AIR;
+        }
+        int chunkX = (pos.getX() >> 4) - this.minChunkX;
+        int chunkZ = (pos.getZ() >> 4) - this.minChunkZ;
+        if (chunkX < 0 || chunkX >= this.sizeX || chunkZ < 0 || chunkZ >= this.sizeZ || !this.loaded[chunkZ * this.sizeX + chunkX]) {
+            return null;
+        }
+        int sectionY = (y >> 4) - this.minSectionY;
+        if (sectionY < 0 || sectionY >= this.sizeY) {
+            return VOID_AIR;
+        }
+        PalettedContainer<BlockState> states = this.sections[(sectionY * this.sizeZ + chunkZ) * this.sizeX + chunkX];
+        return states == null ? AIR : states.get(pos.getX() & 15, y & 15, pos.getZ() & 15);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return this.getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public @Nullable FluidState getFluidIfLoaded(BlockPos pos) {
+        BlockState state = this.getBlockStateIfLoaded(pos);
+        return state == null ? null : state.getFluidState();
+    }
+
+    @Override
+    public @Nullable BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public BlockGetter getChunkForCollisions(int chunkX, int chunkZ) {
+        return this;
+    }
+}
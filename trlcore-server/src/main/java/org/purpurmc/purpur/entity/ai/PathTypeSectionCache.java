@@ -0,0 +1,103 @@
+package org.purpurmc.purpur.entity.ai;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.function.LongSupplier;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.pathfinder.PathType;
+import net.minecraft.world.level.pathfinder.PathTypeCache;
+
+/**
+ * Caches the path type of every block, per chunk section, in place of the level's fixed size position cache. Shared
+ * by all mobs of a level, so crowded farms don't run the same blocks through the path type checks over and over.
+ * <p>
+ * Sections are filled in as blocks are looked up, and a block is forgotten when it is updated. Blocks in chunks that
+ * aren't loaded are never remembered. To catch changes made without a block update, sections that weren't used for
+ * {@link #EXPIRY_TICKS} are dropped, and sections are filled in again from scratch once they are
+ * {@link #MAX_AGE_TICKS} old, however often they are used.
+ */
+public final class PathTypeSectionCache extends PathTypeCache {
+    private static final int EXPIRY_TICKS = 1200;
+    private static final int MAX_AGE_TICKS = 6000;
+    private static final PathType[] TYPES = PathType.values();
+
+    private final LongSupplier gameTime;
+    private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+    private long lastCleanup;
+    private long lastKey = Long.MIN_VALUE;
+    private Section lastSection;
+
+    public PathTypeSectionCache(LongSupplier gameTime) {
+        this.gameTime = gameTime;
+    }
+
+    @Override
+    public PathType getOrCompute(BlockGetter level, BlockPos pos) {
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
+        long key = SectionPos.asLong(x >> 4, y >> 4, z >> 4);
+        long now = this.gameTime.getAsLong();
+        Section section = this.lastSection;
+        if (key != this.lastKey || section == null || now - section.created >= MAX_AGE_TICKS) {
+            section = this.section(key, now);
+        }
+        section.lastUsed = now;
+        int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        int cached = section.types[index];
+        if (cached != 0) {
+            return TYPES[cached - 1];
+        }
+        if (level.getBlockStateIfLoaded(pos) == null) {
+            // chunk not loaded, don't remember
+            return super.getOrCompute(level, pos);
+        }
+        PathType type = super.getOrCompute(level, pos);
+        section.types[index] = (byte) (type.ordinal() + 1);
+        return type;
+    }
+
+    @Override
+    public void invalidate(BlockPos pos) {
+        super.invalidate(pos);
+        if (this.sections.isEmpty()) {
+            return;
+        }
+        Section section = this.sections.get(SectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4));
+        if (section != null) {
+            section.types[((pos.getY() & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15)] = 0;
+        }
+    }
+
+    public int size() {
+        return this.sections.size();
+    }
+
+    private Section section(long key, long now) {
+        if (now - this.lastCleanup >= EXPIRY_TICKS) {
+            this.lastCleanup = now;
+            this.sections.values().removeIf(section -> now - section.lastUsed >= EXPIRY_TICKS || now - section.created >= MAX_AGE_TICKS);
+        }
+        Section section = this.sections.get(key);
+        if (section == null || now - section.created >= MAX_AGE_TICKS) {
+            section = new Section(now);
+            this.sections.put(key, section);
+        }
+        this.lastKey = key;
+        this.lastSection = section;
+        return section;
+    }
+
+    private static final class Section {
+        // ordinal + 1 of the path type of every block, 0 if not known yet
+        private final byte[] types = new byte[4096];
+        private final long created;
+        private long lastUsed;
+
+        private Section(long created) {
+            this.created = created;
+            this.lastUsed = created;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.purpurmc.purpur.entity.ai;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.FenceBlock;
+import net.minecraft.world.level.block.FenceGateBlock;
+import net.minecraft.world.level.block.WallBlock;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Caches, per chunk section, whether a villager could walk into a block position. Shared by all villagers of a level
+ * so packed trading halls don't look up the same blocks over and over when checking for lobotomized villagers.
+ * <p>
+ * A section is dropped when a block in it (or at the bottom of the section above) is updated, and is rebuilt after
+ * {@link #EXPIRY_TICKS} regardless, to catch changes made without a block update.
+ */
+public final class ReachabilityCache {
+    private static final int EXPIRY_TICKS = 1200;
+
+    private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+    private final BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
+    private long lastCleanup;
+
+    /**
+     * Returns whether any of the four horizontal neighbours of the position can be walked into.
+     */
+    public boolean canTravelFrom(Level level, BlockPos pos) {
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
+        return this.canTravelTo(level, x + 1, y, z) || this.canTravelTo(level, x - 1, y, z) || this.canTravelTo(level, x, y, z - 1) || this.canTravelTo(level, x, y, z + 1);
+    }
+
+    public boolean canTravelTo(Level level, int x, int y, int z) {
+        long now = level.getGameTime();
+        if (now - this.lastCleanup >= EXPIRY_TICKS) {
+            this.lastCleanup = now;
+            this.sections.values().removeIf(section -> now - section.created >= EXPIRY_TICKS);
+        }
+        long key = SectionPos.asLong(x >> 4, y >> 4, z >> 4);
+        Section section = this.sections.get(key);
+        if (section == null || now - section.created >= EXPIRY_TICKS) {
+            section = new Section(now);
+            this.sections.put(key, section);
+        }
+        int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if ((section.known[word] & bit) != 0) {
+            return (section.passable[word] & bit) != 0;
+        }
+        BlockState state = level.getBlockStateIfLoaded(this.mutablePos.set(x, y, z));
+        if (state == null) {
+            // chunk not loaded, don't remember
+            return false;
+        }
+        boolean passable = isPassable(state.getBlock(), level.getBlockState(this.mutablePos.move(0, 1, 0)).getBlock());
+        section.known[word] |= bit;
+        if (passable) {
+            section.passable[word] |= bit;
+        }
+        return passable;
+    }
+
+    public void invalidate(BlockPos pos) {
+        if (this.sections.isEmpty()) {
+            return;
+        }
+        int sectionX = pos.getX() >> 4;
+        int sectionY = pos.getY() >> 4;
+        int sectionZ = pos.getZ() >> 4;
+        this.sections.remove(SectionPos.asLong(sectionX, sectionY, sectionZ));
+        if ((pos.getY() & 15) == 0) {
+            // the top block of the section below is checked together with this one
+            this.sections.remove(SectionPos.asLong(sectionX, sectionY - 1, sectionZ));
+        }
+    }
+
+    public int size() {
+        return this.sections.size();
+    }
+
+    private static boolean isPassable(Block bottom, Block top) {
+        if (bottom instanceof FenceBlock || bottom instanceof FenceGateBlock || bottom instanceof WallBlock) {
+            // bottom block is too tall to get over
+            return false;
+        }
+        // only if both blocks have no collision
+        return !bottom.hasCollision && !top.hasCollision;
+    }
+
+    private static final class Section {
+        private final long created;
+        private final long[] known = new long[64];
+        private final long[] passable = new long[64];
+
+        private Section(long created) {
+            this.created = created;
+        }
+    }
+}
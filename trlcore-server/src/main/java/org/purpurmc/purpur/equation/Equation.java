@@ -0,0 +1,106 @@
+package org.purpurmc.purpur.equation;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import org.bukkit.Bukkit;
+
+/**
+ * An arithmetic equation from the config, parsed once and evaluated on primitive doubles.
+ * <p>
+ * Variables are bound by slot in the order they were declared when compiling, so
+ * {@code Equation.compile("expLevel * 7", "expLevel", "expTotal", "exp").evaluate(level, total, progress)}
+ * reads {@code expLevel} from the first argument. Up to {@link #MAX_VARIABLES} variables are supported.
+ */
+public final class Equation {
+    public static final int MAX_VARIABLES = 3;
+
+    private final String source;
+    private final String[] variables;
+    private final Node root;
+    private final boolean compiled;
+
+    private Equation(String source, String[] variables, Node root, boolean compiled) {
+        this.source = source;
+        this.variables = variables;
+        this.root = root;
+        this.compiled = compiled;
+    }
+
+    /**
+     * Parses the given source into an evaluable tree.
+     *
+     * @throws IllegalArgumentException if the source is not a supported expression
+     */
+    public static Equation compile(String source, String... variables) {
+        if (variables.length > MAX_VARIABLES) {
+            throw new IllegalArgumentException("At most " + MAX_VARIABLES + " variables are supported");
+        }
+        return new Equation(source, variables.clone(), new EquationParser(source, variables).parse(), true);
+    }
+
+    /**
+     * Creates an equation that is evaluated through the Rhino script engine on every call. Only meant as a
+     * fallback for scripts the compiler does not understand; {@code fallback} is used if the script fails.
+     */
+    public static Equation rhino(String source, Equation fallback) {
+        String[] variables = fallback.variables;
+        return new Equation(source, variables, (a, b, c) -> {
+            StringBuilder script = new StringBuilder();
+            double[] values = {a, b, c};
+            for (int i = 0; i < variables.length; i++) {
+                script.append("let ").append(variables[i]).append(" = ").append(values[i]).append("; ");
+            }
+            try {
+                return ((Number) Rhino.ENGINE.eval(script.append(source).toString())).doubleValue();
+            } catch (ScriptException | ClassCastException | NullPointerException e) {
+                Bukkit.getLogger().log(Level.SEVERE, "Failed to evaluate equation `" + source + "`", e);
+                return fallback.evaluate(a, b, c);
+            }
+        }, false);
+    }
+
+    public double evaluate(double a) {
+        return this.root.eval(a, 0.0D, 0.0D);
+    }
+
+    public double evaluate(double a, double b) {
+        return this.root.eval(a, b, 0.0D);
+    }
+
+    public double evaluate(double a, double b, double c) {
+        return this.root.eval(a, b, c);
+    }
+
+    public String source() {
+        return this.source;
+    }
+
+    public String[] variables() {
+        return this.variables.clone();
+    }
+
+    public boolean isBlank() {
+        return this.source.isBlank();
+    }
+
+    public boolean isCompiled() {
+        return this.compiled;
+    }
+
+    @Override
+    public String toString() {
+        return "Equation{source='" + this.source + "', variables=" + Arrays.toString(this.variables) + ", compiled=" + this.compiled + "}";
+    }
+
+    @FunctionalInterface
+    interface Node {
+        double eval(double a, double b, double c);
+    }
+
+    private static final class Rhino {
+        private static final ScriptEngine ENGINE = new ScriptEngineManager().getEngineByName("rhino");
+    }
+}
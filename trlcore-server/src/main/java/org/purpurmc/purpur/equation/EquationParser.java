@@ -0,0 +1,385 @@
+package org.purpurmc.purpur.equation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recursive descent parser for the JavaScript expression subset used by config equations.
+ * <p>
+ * Supports numbers, variables, {@code + - * / % **}, comparisons, {@code ! && ||}, the ternary operator
+ * and the common {@code Math} functions and constants. Sub-trees without variables are folded at parse time.
+ */
+final class EquationParser {
+    private final String source;
+    private final String[] variables;
+    private int pos;
+
+    EquationParser(String source, String[] variables) {
+        this.source = source;
+        this.variables = variables;
+    }
+
+    Equation.Node parse() {
+        skipWhitespace();
+        if (this.pos >= this.source.length()) {
+            return constant(0.0D);
+        }
+        Equation.Node node = parseTernary();
+        skipWhitespace();
+        while (eat(';')) {
+            skipWhitespace();
+        }
+        if (this.pos < this.source.length()) {
+            throw error("Unexpected '" + this.source.charAt(this.pos) + "'");
+        }
+        return node;
+    }
+
+    private Equation.Node parseTernary() {
+        Equation.Node condition = parseOr();
+        if (!eat('?')) {
+            return condition;
+        }
+        Equation.Node whenTrue = parseTernary();
+        expect(':');
+        Equation.Node whenFalse = parseTernary();
+        return fold(condition, whenTrue, whenFalse, (a, b, c) -> truthy(condition.eval(a, b, c)) ? whenTrue.eval(a, b, c) : whenFalse.eval(a, b, c));
+    }
+
+    private Equation.Node parseOr() {
+        Equation.Node left = parseAnd();
+        while (eat("||")) {
+            Equation.Node l = left;
+            Equation.Node r = parseAnd();
+            left = fold(l, r, (a, b, c) -> {
+                double value = l.eval(a, b, c);
+                return truthy(value) ? value : r.eval(a, b, c);
+            });
+        }
+        return left;
+    }
+
+    private Equation.Node parseAnd() {
+        Equation.Node left = parseEquality();
+        while (eat("&&")) {
+            Equation.Node l = left;
+            Equation.Node r = parseEquality();
+            left = fold(l, r, (a, b, c) -> {
+                double value = l.eval(a, b, c);
+                return truthy(value) ? r.eval(a, b, c) : value;
+            });
+        }
+        return left;
+    }
+
+    private Equation.Node parseEquality() {
+        Equation.Node left = parseRelational();
+        while (true) {
+            Equation.Node l = left;
+            if (eat("===") || eat("==")) {
+                Equation.Node r = parseRelational();
+                left = fold(l, r, (a, b, c) -> bool(l.eval(a, b, c) == r.eval(a, b, c)));
+            } else if (eat("!==") || eat("!=")) {
+                Equation.Node r = parseRelational();
+                left = fold(l, r, (a, b, c) -> bool(l.eval(a, b, c) != r.eval(a, b, c)));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Equation.Node parseRelational() {
+        Equation.Node left = parseAdditive();
+        while (true) {
+            Equation.Node l = left;
+            if (eat("<=")) {
+                Equation.Node r = parseAdditive();
+                left = fold(l, r, (a, b, c) -> bool(l.eval(a, b, c) <= r.eval(a, b, c)));
+            } else if (eat(">=")) {
+                Equation.Node r = parseAdditive();
+                left = fold(l, r, (a, b, c) -> bool(l.eval(a, b, c) >= r.eval(a, b, c)));
+            } else if (eat('<')) {
+                Equation.Node r = parseAdditive();
+                left = fold(l, r, (a, b, c) -> bool(l.eval(a, b, c) < r.eval(a, b, c)));
+            } else if (eat('>')) {
+                Equation.Node r = parseAdditive();
+                left = fold(l, r, (a, b, c) -> bool(l.eval(a, b, c) > r.eval(a, b, c)));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Equation.Node parseAdditive() {
+        Equation.Node left = parseMultiplicative();
+        while (true) {
+            Equation.Node l = left;
+            if (eat('+')) {
+                Equation.Node r = parseMultiplicative();
+                left = fold(l, r, (a, b, c) -> l.eval(a, b, c) + r.eval(a, b, c));
+            } else if (eat('-')) {
+                Equation.Node r = parseMultiplicative();
+                left = fold(l, r, (a, b, c) -> l.eval(a, b, c) - r.eval(a, b, c));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Equation.Node parseMultiplicative() {
+        Equation.Node left = parseUnary();
+        while (true) {
+            Equation.Node l = left;
+            if (peek("**")) {
+                return left;
+            } else if (eat('*')) {
+                Equation.Node r = parseUnary();
+                left = fold(l, r, (a, b, c) -> l.eval(a, b, c) * r.eval(a, b, c));
+            } else if (eat('/')) {
+                Equation.Node r = parseUnary();
+                left = fold(l, r, (a, b, c) -> l.eval(a, b, c) / r.eval(a, b, c));
+            } else if (eat('%')) {
+                Equation.Node r = parseUnary();
+                left = fold(l, r, (a, b, c) -> l.eval(a, b, c) % r.eval(a, b, c));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Equation.Node parseUnary() {
+        if (eat('-')) {
+            Equation.Node operand = parseUnary();
+            return fold(operand, (a, b, c) -> -operand.eval(a, b, c));
+        } else if (eat('+')) {
+            return parseUnary();
+        } else if (!peek("!=") && eat('!')) {
+            Equation.Node operand = parseUnary();
+            return fold(operand, (a, b, c) -> bool(!truthy(operand.eval(a, b, c))));
+        }
+        return parsePower();
+    }
+
+    private Equation.Node parsePower() {
+        Equation.Node base = parsePrimary();
+        if (eat("**")) {
+            Equation.Node exponent = parseUnary();
+            return fold(base, exponent, (a, b, c) -> Math.pow(base.eval(a, b, c), exponent.eval(a, b, c)));
+        }
+        return base;
+    }
+
+    private Equation.Node parsePrimary() {
+        skipWhitespace();
+        if (eat('(')) {
+            Equation.Node node = parseTernary();
+            expect(')');
+            return node;
+        }
+        if (this.pos >= this.source.length()) {
+            throw error("Unexpected end of equation");
+        }
+        char ch = this.source.charAt(this.pos);
+        if (Character.isDigit(ch) || ch == '.') {
+            return parseNumber();
+        }
+        if (Character.isJavaIdentifierStart(ch)) {
+            String name = parseIdentifier();
+            skipWhitespace();
+            if (eat('(')) {
+                return parseFunction(name);
+            }
+            return parseVariable(name);
+        }
+        throw error("Unexpected '" + ch + "'");
+    }
+
+    private Equation.Node parseNumber() {
+        int start = this.pos;
+        while (this.pos < this.source.length() && (Character.isDigit(this.source.charAt(this.pos)) || this.source.charAt(this.pos) == '.')) {
+            this.pos++;
+        }
+        if (this.pos < this.source.length() && (this.source.charAt(this.pos) == 'e' || this.source.charAt(this.pos) == 'E')) {
+            this.pos++;
+            if (this.pos < this.source.length() && (this.source.charAt(this.pos) == '+' || this.source.charAt(this.pos) == '-')) {
+                this.pos++;
+            }
+            while (this.pos < this.source.length() && Character.isDigit(this.source.charAt(this.pos))) {
+                this.pos++;
+            }
+        }
+        try {
+            return constant(Double.parseDouble(this.source.substring(start, this.pos)));
+        } catch (NumberFormatException e) {
+            this.pos = start;
+            throw error("Invalid number");
+        }
+    }
+
+    private String parseIdentifier() {
+        int start = this.pos;
+        while (this.pos < this.source.length() && (Character.isJavaIdentifierPart(this.source.charAt(this.pos)) || this.source.charAt(this.pos) == '.')) {
+            this.pos++;
+        }
+        return this.source.substring(start, this.pos);
+    }
+
+    private Equation.Node parseVariable(String name) {
+        for (int i = 0; i < this.variables.length; i++) {
+            if (this.variables[i].equals(name)) {
+                return switch (i) {
+                    case 0 -> (a, b, c) -> a;
+                    case 1 -> (a, b, c) -> b;
+                    default -> (a, b, c) -> c;
+                };
+            }
+        }
+        return switch (name) {
+            case "Math.PI" -> constant(Math.PI);
+            case "Math.E" -> constant(Math.E);
+            case "Math.LN2" -> constant(Math.log(2.0D));
+            case "Math.LN10" -> constant(Math.log(10.0D));
+            case "Math.SQRT2" -> constant(Math.sqrt(2.0D));
+            case "true" -> constant(1.0D);
+            case "false" -> constant(0.0D);
+            case "Infinity" -> constant(Double.POSITIVE_INFINITY);
+            case "NaN" -> constant(Double.NaN);
+            default -> throw error("Unknown variable '" + name + "'");
+        };
+    }
+
+    private Equation.Node parseFunction(String name) {
+        List<Equation.Node> args = new ArrayList<>();
+        skipWhitespace();
+        if (!eat(')')) {
+            do {
+                args.add(parseTernary());
+            } while (eat(','));
+            expect(')');
+        }
+        String function = name.startsWith("Math.") ? name.substring(5) : name;
+        if (function.equals("min") || function.equals("max")) {
+            if (args.isEmpty()) {
+                return constant(function.equals("min") ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY);
+            }
+            Equation.Node node = args.get(0);
+            for (int i = 1; i < args.size(); i++) {
+                Equation.Node l = node;
+                Equation.Node r = args.get(i);
+                node = function.equals("min")
+                    ? fold(l, r, (a, b, c) -> Math.min(l.eval(a, b, c), r.eval(a, b, c)))
+                    : fold(l, r, (a, b, c) -> Math.max(l.eval(a, b, c), r.eval(a, b, c)));
+            }
+            return node;
+        }
+        if (function.equals("pow") || function.equals("atan2") || function.equals("hypot")) {
+            checkArity(name, args, 2);
+            Equation.Node l = args.get(0);
+            Equation.Node r = args.get(1);
+            return switch (function) {
+                case "pow" -> fold(l, r, (a, b, c) -> Math.pow(l.eval(a, b, c), r.eval(a, b, c)));
+                case "atan2" -> fold(l, r, (a, b, c) -> Math.atan2(l.eval(a, b, c), r.eval(a, b, c)));
+                default -> fold(l, r, (a, b, c) -> Math.hypot(l.eval(a, b, c), r.eval(a, b, c)));
+            };
+        }
+        checkArity(name, args, 1);
+        Equation.Node x = args.get(0);
+        return switch (function.toLowerCase(Locale.ROOT)) {
+            case "abs" -> fold(x, (a, b, c) -> Math.abs(x.eval(a, b, c)));
+            case "floor" -> fold(x, (a, b, c) -> Math.floor(x.eval(a, b, c)));
+            case "ceil" -> fold(x, (a, b, c) -> Math.ceil(x.eval(a, b, c)));
+            case "round" -> fold(x, (a, b, c) -> Math.floor(x.eval(a, b, c) + 0.5D));
+            case "trunc" -> fold(x, (a, b, c) -> {
+                double value = x.eval(a, b, c);
+                return value < 0.0D ? Math.ceil(value) : Math.floor(value);
+            });
+            case "sign" -> fold(x, (a, b, c) -> Math.signum(x.eval(a, b, c)));
+            case "sqrt" -> fold(x, (a, b, c) -> Math.sqrt(x.eval(a, b, c)));
+            case "cbrt" -> fold(x, (a, b, c) -> Math.cbrt(x.eval(a, b, c)));
+            case "exp" -> fold(x, (a, b, c) -> Math.exp(x.eval(a, b, c)));
+            case "log" -> fold(x, (a, b, c) -> Math.log(x.eval(a, b, c)));
+            case "log10" -> fold(x, (a, b, c) -> Math.log10(x.eval(a, b, c)));
+            case "log2" -> fold(x, (a, b, c) -> Math.log(x.eval(a, b, c)) / Math.log(2.0D));
+            case "sin" -> fold(x, (a, b, c) -> Math.sin(x.eval(a, b, c)));
+            case "cos" -> fold(x, (a, b, c) -> Math.cos(x.eval(a, b, c)));
+            case "tan" -> fold(x, (a, b, c) -> Math.tan(x.eval(a, b, c)));
+            default -> throw error("Unknown function '" + name + "'");
+        };
+    }
+
+    private void checkArity(String name, List<Equation.Node> args, int arity) {
+        if (args.size() != arity) {
+            throw error("Function '" + name + "' expects " + arity + " argument(s) but got " + args.size());
+        }
+    }
+
+    private static Equation.Node fold(Equation.Node operand, Equation.Node node) {
+        return operand instanceof Constant ? constant(node.eval(0.0D, 0.0D, 0.0D)) : node;
+    }
+
+    private static Equation.Node fold(Equation.Node left, Equation.Node right, Equation.Node node) {
+        return left instanceof Constant && right instanceof Constant ? constant(node.eval(0.0D, 0.0D, 0.0D)) : node;
+    }
+
+    private static Equation.Node fold(Equation.Node first, Equation.Node second, Equation.Node third, Equation.Node node) {
+        return first instanceof Constant && second instanceof Constant && third instanceof Constant ? constant(node.eval(0.0D, 0.0D, 0.0D)) : node;
+    }
+
+    private static Equation.Node constant(double value) {
+        return new Constant(value);
+    }
+
+    private static boolean truthy(double value) {
+        return value != 0.0D && !Double.isNaN(value);
+    }
+
+    private static double bool(boolean value) {
+        return value ? 1.0D : 0.0D;
+    }
+
+    private void skipWhitespace() {
+        while (this.pos < this.source.length() && Character.isWhitespace(this.source.charAt(this.pos))) {
+            this.pos++;
+        }
+    }
+
+    private boolean peek(String token) {
+        skipWhitespace();
+        return this.source.startsWith(token, this.pos);
+    }
+
+    private boolean eat(char ch) {
+        skipWhitespace();
+        if (this.pos < this.source.length() && this.source.charAt(this.pos) == ch) {
+            this.pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean eat(String token) {
+        if (peek(token)) {
+            this.pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char ch) {
+        if (!eat(ch)) {
+            throw error("Expected '" + ch + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + this.pos + " in `" + this.source + "`");
+    }
+
+    private record Constant(double value) implements Equation.Node {
+        @Override
+        public double eval(double a, double b, double c) {
+            return this.value;
+        }
+    }
+}
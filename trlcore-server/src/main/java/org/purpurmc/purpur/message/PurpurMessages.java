@@ -0,0 +1,83 @@
+package org.purpurmc.purpur.message;
+
+import io.papermc.paper.adventure.PaperAdventure;
+import java.util.HashMap;
+import java.util.Map;
+import net.kyori.adventure.text.ComponentLike;
+import net.minecraft.network.chat.Component;
+import org.jetbrains.annotations.Nullable;
+import org.purpurmc.purpur.PurpurConfig;
+
+/**
+ * The configurable messages as {@link MessageTemplate}s, rebuilt whenever the config is read. Messages that don't
+ * use placeholders are converted to a vanilla component once and that component is sent every time.
+ */
+public final class PurpurMessages {
+    public static Message cannotRideMob;
+    public static Message dontRunWithScissors;
+    public static Message ramCommandOutput;
+    public static Message rambarCommandOutput;
+    public static Message tpsbarCommandOutput;
+    public static Message uptimeCommandOutput;
+    public static Message unverifiedUsername;
+    public static Message sleepSkippingNight;
+    public static Message sleepingPlayersPercent;
+    public static Message sleepNotPossible;
+
+    private static volatile Map<String, Component> vanillaByRaw = Map.of();
+
+    private PurpurMessages() {
+    }
+
+    public static void rebuild() {
+        Map<String, Component> vanilla = new HashMap<>();
+        cannotRideMob = register(vanilla, "cannot-ride-mob", PurpurConfig.cannotRideMob);
+        dontRunWithScissors = register(vanilla, "dont-run-with-scissors", PurpurConfig.dontRunWithScissors);
+        ramCommandOutput = register(vanilla, "ram-command-output", PurpurConfig.ramCommandOutput, "allocated", "used", "xmx", "xms", "percent");
+        rambarCommandOutput = register(vanilla, "rambar-command-output", PurpurConfig.rambarCommandOutput, "onoff", "target");
+        tpsbarCommandOutput = register(vanilla, "tpsbar-command-output", PurpurConfig.tpsbarCommandOutput, "onoff", "target");
+        uptimeCommandOutput = register(vanilla, "uptime-command-output", PurpurConfig.uptimeCommandOutput, "uptime");
+        unverifiedUsername = register(vanilla, "unverified-username", PurpurConfig.unverifiedUsername);
+        sleepSkippingNight = register(vanilla, "sleep-skipping-night", PurpurConfig.sleepSkippingNight);
+        sleepingPlayersPercent = register(vanilla, "sleeping-players-percent", PurpurConfig.sleepingPlayersPercent, "count", "total");
+        sleepNotPossible = register(vanilla, "sleep-not-possible", PurpurConfig.sleepNotPossible);
+        vanillaByRaw = vanilla;
+    }
+
+    private static Message register(Map<String, Component> vanilla, String key, String raw, String... slots) {
+        MessageTemplate template = MessageTemplates.register("purpur:" + key, raw, slots);
+        Component component = null;
+        if (template.isStatic()) {
+            component = PaperAdventure.asVanilla(MessageTemplates.deserialize(raw));
+            vanilla.put(raw, component);
+        }
+        return new Message(template, component);
+    }
+
+    /**
+     * Parses a MiniMessage string without placeholders into a vanilla component, reusing the component of a
+     * configured message with the same text.
+     */
+    public static Component vanilla(String raw) {
+        Component component = vanillaByRaw.get(raw);
+        return component != null ? component : PaperAdventure.asVanilla(MessageTemplates.deserialize(raw));
+    }
+
+    public record Message(MessageTemplate template, @Nullable Component staticComponent) {
+        public net.kyori.adventure.text.Component render(ComponentLike... values) {
+            return this.template.render(values);
+        }
+
+        public net.kyori.adventure.text.Component renderText(String... values) {
+            return this.template.renderText(values);
+        }
+
+        public Component vanilla(ComponentLike... values) {
+            return this.staticComponent != null ? this.staticComponent : PaperAdventure.asVanilla(this.template.render(values));
+        }
+
+        public Component vanillaText(String... values) {
+            return this.staticComponent != null ? this.staticComponent : PaperAdventure.asVanilla(this.template.renderText(values));
+        }
+    }
+}
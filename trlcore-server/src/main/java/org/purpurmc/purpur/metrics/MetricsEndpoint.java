@@ -0,0 +1,130 @@
+package org.purpurmc.purpur.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import org.bukkit.Bukkit;
+import org.purpurmc.purpur.PurpurConfig;
+
+/**
+ * Serves the {@link TickMetrics} in the Prometheus text format on {@code /metrics}. Bound to localhost unless
+ * configured otherwise, as there is no authentication.
+ */
+public final class MetricsEndpoint {
+    private static HttpServer httpServer;
+    private static ExecutorService executor;
+    private static String boundAddress;
+    private static int boundPort;
+
+    private MetricsEndpoint() {
+    }
+
+    /**
+     * Starts, restarts or stops the endpoint to match the config. Does nothing if it already runs as configured.
+     */
+    public static synchronized void start() {
+        if (!PurpurConfig.metricsEnabled) {
+            stop();
+            return;
+        }
+        if (httpServer != null && PurpurConfig.metricsBindAddress.equals(boundAddress) && PurpurConfig.metricsPort == boundPort) {
+            return;
+        }
+        stop();
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(PurpurConfig.metricsBindAddress, PurpurConfig.metricsPort), 0);
+        } catch (IOException e) {
+            Bukkit.getLogger().log(Level.SEVERE, "Could not bind the metrics endpoint to " + PurpurConfig.metricsBindAddress + ":" + PurpurConfig.metricsPort, e);
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Purpur Metrics").setDaemon(true).build());
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/metrics", MetricsEndpoint::handle);
+        httpServer.start();
+        boundAddress = PurpurConfig.metricsBindAddress;
+        boundPort = PurpurConfig.metricsPort;
+        Bukkit.getLogger().info("Serving metrics on http://" + boundAddress + ":" + boundPort + "/metrics");
+    }
+
+    public static synchronized void stop() {
+        if (httpServer == null) {
+            return;
+        }
+        httpServer.stop(0);
+        executor.shutdownNow();
+        httpServer = null;
+        executor = null;
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    static String render() {
+        long now = System.nanoTime();
+        TickMetrics.removeIdle(now);
+        TickHistogram.Snapshot server = TickMetrics.server().snapshot(now);
+        Map<String, TickHistogram.Snapshot> levels = new TreeMap<>();
+        TickMetrics.levels().forEach((name, histogram) -> levels.put(name, histogram.snapshot(now)));
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("# HELP purpur_tick_duration_milliseconds Duration of server ticks, quantiles over the last minute.\n");
+        sb.append("# TYPE purpur_tick_duration_milliseconds summary\n");
+        summary(sb, "purpur_tick_duration_milliseconds", "", server);
+        sb.append("# HELP purpur_world_tick_duration_milliseconds Duration of world ticks, quantiles over the last minute.\n");
+        sb.append("# TYPE purpur_world_tick_duration_milliseconds summary\n");
+        levels.forEach((name, snapshot) -> summary(sb, "purpur_world_tick_duration_milliseconds", "world=\"" + escape(name) + "\"", snapshot));
+
+        sb.append("# HELP purpur_ticks_over_budget_total Server ticks that took longer than the tick budget.\n");
+        sb.append("# TYPE purpur_ticks_over_budget_total counter\n");
+        sb.append("purpur_ticks_over_budget_total ").append(server.totalOverBudget()).append('\n');
+        sb.append("# HELP purpur_world_ticks_over_budget_total World ticks that took longer than the tick budget.\n");
+        sb.append("# TYPE purpur_world_ticks_over_budget_total counter\n");
+        levels.forEach((name, snapshot) -> sb.append("purpur_world_ticks_over_budget_total{world=\"").append(escape(name)).append("\"} ").append(snapshot.totalOverBudget()).append('\n'));
+        return sb.toString();
+    }
+
+    private static void summary(StringBuilder sb, String name, String labels, TickHistogram.Snapshot snapshot) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        quantile(sb, name, prefix, "0.5", snapshot.p50());
+        quantile(sb, name, prefix, "0.95", snapshot.p95());
+        quantile(sb, name, prefix, "0.99", snapshot.p99());
+        quantile(sb, name, prefix, "1", snapshot.max());
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        sb.append(name).append("_sum").append(suffix).append(format(snapshot.totalMillis())).append('\n');
+        sb.append(name).append("_count").append(suffix).append(snapshot.totalCount()).append('\n');
+    }
+
+    private static void quantile(StringBuilder sb, String name, String prefix, String quantile, double value) {
+        sb.append(name).append('{').append(prefix).append("quantile=\"").append(quantile).append("\"} ").append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
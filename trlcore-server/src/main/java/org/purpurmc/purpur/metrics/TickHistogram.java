@@ -0,0 +1,140 @@
+package org.purpurmc.purpur.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size, log-linear histogram of tick durations covering the last minute, in the spirit of HdrHistogram.
+ * <p>
+ * Durations are bucketed in microseconds: exactly below 64 microseconds, and with 32 buckets per power of two
+ * above that, so a reported percentile is at most about 3% above the real value. The window is split in
+ * {@link #SLOTS} slots of {@link #SLOT_NANOS}, the oldest of which is cleared and reused as time moves on.
+ * <p>
+ * Only the main thread records. Snapshots may be taken from any thread and may miss the tick being recorded.
+ */
+public final class TickHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+    private static final int MAX_EXPONENT = 29;
+    private static final long MAX_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int SLOTS = 6;
+    private static final long SLOT_NANOS = 10_000_000_000L;
+
+    private final long[][] counts = new long[SLOTS][BUCKETS];
+    private final long[] slotIds = new long[SLOTS];
+    private final long[] slotCounts = new long[SLOTS];
+    private final long[] slotOverBudget = new long[SLOTS];
+    private final long[] slotMax = new long[SLOTS];
+    private volatile long totalCount;
+    private volatile long totalOverBudget;
+    private volatile long totalNanos;
+
+    public TickHistogram() {
+        Arrays.fill(this.slotIds, Long.MIN_VALUE);
+    }
+
+    /**
+     * @param nanos the duration of the tick
+     * @param budgetNanos ticks taking longer than this are counted as over budget
+     * @param now the current {@link System#nanoTime()}
+     */
+    public void record(long nanos, long budgetNanos, long now) {
+        long slotId = now / SLOT_NANOS;
+        int slot = (int) Math.floorMod(slotId, SLOTS);
+        if (this.slotIds[slot] != slotId) {
+            // first tick of a new slot, forget what it held a minute ago
+            Arrays.fill(this.counts[slot], 0L);
+            this.slotCounts[slot] = 0L;
+            this.slotOverBudget[slot] = 0L;
+            this.slotMax[slot] = 0L;
+            this.slotIds[slot] = slotId;
+        }
+        boolean overBudget = nanos > budgetNanos;
+        this.counts[slot][bucket(nanos / 1000L)]++;
+        this.slotCounts[slot]++;
+        if (overBudget) {
+            this.slotOverBudget[slot]++;
+        }
+        if (nanos > this.slotMax[slot]) {
+            this.slotMax[slot] = nanos;
+        }
+        // single writer, so plain read-modify-write on the volatiles is fine
+        this.totalCount = this.totalCount + 1;
+        this.totalNanos = this.totalNanos + nanos;
+        if (overBudget) {
+            this.totalOverBudget = this.totalOverBudget + 1;
+        }
+    }
+
+    /**
+     * Merges the slots of the last minute.
+     *
+     * @param now the current {@link System#nanoTime()}
+     */
+    public Snapshot snapshot(long now) {
+        long currentSlotId = now / SLOT_NANOS;
+        long[] merged = new long[BUCKETS];
+        long count = 0L;
+        long overBudget = 0L;
+        long max = 0L;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (currentSlotId - this.slotIds[slot] >= SLOTS) {
+                continue;
+            }
+            long[] counts = this.counts[slot];
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += counts[i];
+            }
+            count += this.slotCounts[slot];
+            overBudget += this.slotOverBudget[slot];
+            max = Math.max(max, this.slotMax[slot]);
+        }
+        double maxMillis = max / 1.0E6D;
+        return new Snapshot(count, overBudget, percentile(merged, count, 0.50D, maxMillis), percentile(merged, count, 0.95D, maxMillis), percentile(merged, count, 0.99D, maxMillis), maxMillis, this.totalCount, this.totalOverBudget, this.totalNanos / 1.0E6D);
+    }
+
+    private static double percentile(long[] counts, long total, double percentile, double max) {
+        if (total == 0L) {
+            return 0.0D;
+        }
+        long target = Math.max(1L, (long) Math.ceil(total * percentile));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                // the bucket bound may lie above the slowest tick that landed in it
+                return Math.min(highestEquivalentMicros(i) / 1000.0D, max);
+            }
+        }
+        return max;
+    }
+
+    static int bucket(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) Math.max(0L, micros);
+        }
+        micros = Math.min(micros, MAX_MICROS);
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (micros >>> shift) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    static long highestEquivalentMicros(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int index = bucket - LINEAR_BUCKETS;
+        int shift = index / SUB_BUCKETS + 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Percentiles and the maximum cover the last minute, the totals cover the whole uptime. All durations are in
+     * milliseconds.
+     */
+    public record Snapshot(long count, long overBudget, double p50, double p95, double p99, double max, long totalCount, long totalOverBudget, double totalMillis) {
+    }
+}
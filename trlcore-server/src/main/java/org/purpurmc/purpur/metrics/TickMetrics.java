@@ -0,0 +1,57 @@
+package org.purpurmc.purpur.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.minecraft.server.level.ServerLevel;
+import org.purpurmc.purpur.PurpurConfig;
+
+/**
+ * Tick duration histograms of the whole server and of every world, fed from the tick loop.
+ */
+public final class TickMetrics {
+    private static final TickHistogram server = new TickHistogram();
+    private static final Map<String, TickHistogram> levels = new ConcurrentHashMap<>();
+    private static long tickStart;
+
+    private TickMetrics() {
+    }
+
+    public static TickHistogram server() {
+        return server;
+    }
+
+    /**
+     * Returns the histograms by world name. Worlds that were unloaded stay until {@link #removeIdle(long)} drops them.
+     */
+    public static Map<String, TickHistogram> levels() {
+        return levels;
+    }
+
+    public static void startTick(long now) {
+        tickStart = now;
+    }
+
+    public static void endTick(long now) {
+        if (tickStart == 0L) {
+            // the tick loop skipped the start, e.g. while sprinting
+            return;
+        }
+        server.record(now - tickStart, budgetNanos(), now);
+        tickStart = 0L;
+    }
+
+    public static void recordLevel(ServerLevel level, long nanos) {
+        levels.computeIfAbsent(level.getWorld().getName(), name -> new TickHistogram()).record(nanos, budgetNanos(), System.nanoTime());
+    }
+
+    /**
+     * Drops the histograms of worlds that didn't tick during the last minute.
+     */
+    public static void removeIdle(long now) {
+        levels.values().removeIf(histogram -> histogram.snapshot(now).count() == 0L);
+    }
+
+    private static long budgetNanos() {
+        return (long) (PurpurConfig.metricsTickBudget * 1.0E6D);
+    }
+}
@@ -0,0 +1,29 @@
+package org.purpurmc.purpur.profiler;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.Level;
+
+/**
+ * The spans of one level during one profiling session, accumulated into arrays indexed by registry id or phase.
+ */
+public final class LevelProfile {
+    final TickProfiler.Session session;
+    final String name;
+    final long[] entityNanos;
+    final long[] entityCounts;
+    final long[] blockEntityNanos;
+    final long[] blockEntityCounts;
+    final long[] phaseNanos = new long[TickProfiler.Phase.VALUES.length];
+    final long[] phaseCounts = new long[TickProfiler.Phase.VALUES.length];
+    TickProfiler.Phase phase;
+    long phaseStart;
+
+    LevelProfile(TickProfiler.Session session, Level level) {
+        this.session = session;
+        this.name = level.getWorld().getName();
+        this.entityNanos = new long[BuiltInRegistries.ENTITY_TYPE.size()];
+        this.entityCounts = new long[this.entityNanos.length];
+        this.blockEntityNanos = new long[BuiltInRegistries.BLOCK_ENTITY_TYPE.size()];
+        this.blockEntityCounts = new long[this.blockEntityNanos.length];
+    }
+}
@@ -0,0 +1,247 @@
+package org.purpurmc.purpur.profiler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * A counter based tick profiler. Spans are measured with {@link System#nanoTime()} and added up per entity type,
+ * block entity type, plugin task and world phase, without sampling or allocating per span.
+ * <p>
+ * Spans are opened with {@link #start()}, which returns 0 while the profiler is stopped, so a stopped profiler
+ * costs one volatile read per span. Everything else runs on the main thread.
+ */
+public final class TickProfiler {
+    private static final Path OUTPUT_DIRECTORY = Path.of("purpur-profiles");
+    private static volatile boolean enabled;
+    private static Session session;
+
+    private TickProfiler() {
+    }
+
+    public static boolean isRunning() {
+        return enabled;
+    }
+
+    public static boolean startProfiling() {
+        if (enabled) {
+            return false;
+        }
+        session = new Session();
+        enabled = true;
+        return true;
+    }
+
+    /**
+     * Stops the profiler and writes the flat report and the collapsed stacks.
+     *
+     * @return the flat report, or null if the profiler was not running
+     */
+    public static Report stopProfiling() throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        enabled = false;
+        Session session = TickProfiler.session;
+        TickProfiler.session = null;
+        return session.write(OUTPUT_DIRECTORY);
+    }
+
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static void endEntity(Level level, Entity entity, long start) {
+        if (start == 0L) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        LevelProfile profile = profile(level);
+        if (profile != null) {
+            int id = BuiltInRegistries.ENTITY_TYPE.getId(entity.getType());
+            profile.entityNanos[id] += nanos;
+            profile.entityCounts[id]++;
+        }
+    }
+
+    public static void endBlockEntity(Level level, BlockEntityType<?> type, long start) {
+        if (start == 0L) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        LevelProfile profile = profile(level);
+        if (profile != null) {
+            int id = BuiltInRegistries.BLOCK_ENTITY_TYPE.getId(type);
+            profile.blockEntityNanos[id] += nanos;
+            profile.blockEntityCounts[id]++;
+        }
+    }
+
+    public static void endTask(Plugin plugin, long start) {
+        if (start == 0L) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        Session session = TickProfiler.session;
+        if (session != null) {
+            long[] span = session.tasks.computeIfAbsent(plugin, key -> new long[2]);
+            span[0] += nanos;
+            span[1]++;
+        }
+    }
+
+    /**
+     * Ends the current phase of the level, if any, and starts the given one.
+     */
+    public static void phase(Level level, Phase phase) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        LevelProfile profile = profile(level);
+        if (profile == null) {
+            return;
+        }
+        if (profile.phase != null) {
+            profile.phaseNanos[profile.phase.ordinal()] += now - profile.phaseStart;
+            profile.phaseCounts[profile.phase.ordinal()]++;
+        }
+        profile.phase = phase;
+        profile.phaseStart = now;
+    }
+
+    /**
+     * Ends the current phase of the level, called once the level is done ticking.
+     */
+    public static void endTick(Level level) {
+        phase(level, null);
+    }
+
+    private static LevelProfile profile(Level level) {
+        Session session = TickProfiler.session;
+        if (session == null) {
+            return null;
+        }
+        LevelProfile profile = level.tickProfile;
+        if (profile == null || profile.session != session) {
+            profile = level.tickProfile = new LevelProfile(session, level);
+            session.levels.add(profile);
+        }
+        return profile;
+    }
+
+    public enum Phase {
+        OTHER("other"),
+        BLOCK_TICKS("block-ticks"),
+        FLUID_TICKS("fluid-ticks"),
+        RAIDS("raids"),
+        CHUNKS("chunks"),
+        BLOCK_EVENTS("block-events"),
+        ENTITIES("entities"),
+        BLOCK_ENTITIES("block-entities");
+
+        static final Phase[] VALUES = values();
+
+        private final String id;
+
+        Phase(String id) {
+            this.id = id;
+        }
+    }
+
+    public record Line(String name, long nanos, long count) {
+    }
+
+    public record Report(long durationNanos, int ticks, List<Line> lines, Path flatFile, Path collapsedFile) {
+    }
+
+    static final class Session {
+        private final long startNanos = System.nanoTime();
+        private final int startTick = MinecraftServer.currentTick;
+        private final List<LevelProfile> levels = new ArrayList<>();
+        private final Map<Plugin, long[]> tasks = new IdentityHashMap<>();
+
+        private Report write(Path directory) throws IOException {
+            long duration = System.nanoTime() - this.startNanos;
+            int ticks = MinecraftServer.currentTick - this.startTick;
+
+            List<Line> lines = new ArrayList<>();
+            StringBuilder collapsed = new StringBuilder();
+            for (LevelProfile level : this.levels) {
+                for (Phase phase : Phase.VALUES) {
+                    long nanos = level.phaseNanos[phase.ordinal()];
+                    if (nanos == 0L) {
+                        continue;
+                    }
+                    String name = level.name + ";" + phase.id;
+                    lines.add(new Line(name, nanos, level.phaseCounts[phase.ordinal()]));
+                    long self = nanos;
+                    if (phase == Phase.ENTITIES) {
+                        self -= collect(lines, collapsed, name, level.entityNanos, level.entityCounts, id -> BuiltInRegistries.ENTITY_TYPE.getKey(BuiltInRegistries.ENTITY_TYPE.byId(id)).toString());
+                    } else if (phase == Phase.BLOCK_ENTITIES) {
+                        self -= collect(lines, collapsed, name, level.blockEntityNanos, level.blockEntityCounts, id -> BuiltInRegistries.BLOCK_ENTITY_TYPE.getKey(BuiltInRegistries.BLOCK_ENTITY_TYPE.byId(id)).toString());
+                    }
+                    appendCollapsed(collapsed, name, Math.max(0L, self));
+                }
+            }
+            for (Map.Entry<Plugin, long[]> entry : this.tasks.entrySet()) {
+                String name = "scheduler;" + entry.getKey().getName();
+                lines.add(new Line(name, entry.getValue()[0], entry.getValue()[1]));
+                appendCollapsed(collapsed, name, entry.getValue()[0]);
+            }
+            lines.sort(Comparator.comparingLong(Line::nanos).reversed());
+
+            StringBuilder flat = new StringBuilder();
+            flat.append(String.format(Locale.ROOT, "# %d ticks in %.1f s%n", ticks, duration / 1.0E9D));
+            flat.append(String.format(Locale.ROOT, "# %8s %12s %10s %10s  %s%n", "share", "total ms", "count", "avg us", "span"));
+            for (Line line : lines) {
+                flat.append(String.format(Locale.ROOT, "%10.2f%% %12.1f %10d %10.1f  %s%n", line.nanos() * 100.0D / duration, line.nanos() / 1.0E6D, line.count(), line.nanos() / 1.0E3D / Math.max(1L, line.count()), line.name()));
+            }
+
+            Files.createDirectories(directory);
+            String stamp = new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss", Locale.ROOT).format(new Date());
+            Path flatFile = directory.resolve("profile-" + stamp + ".txt");
+            Path collapsedFile = directory.resolve("profile-" + stamp + ".collapsed");
+            Files.writeString(flatFile, flat);
+            Files.writeString(collapsedFile, collapsed);
+            return new Report(duration, ticks, lines, flatFile, collapsedFile);
+        }
+
+        private static long collect(List<Line> lines, StringBuilder collapsed, String parent, long[] nanos, long[] counts, IntFunction<String> names) {
+            long total = 0L;
+            for (int id = 0; id < nanos.length; id++) {
+                if (nanos[id] == 0L) {
+                    continue;
+                }
+                String name = parent + ";" + names.apply(id);
+                lines.add(new Line(name, nanos[id], counts[id]));
+                appendCollapsed(collapsed, name, nanos[id]);
+                total += nanos[id];
+            }
+            return total;
+        }
+
+        // collapsed stacks use integer sample counts, microseconds keep flame graphs readable
+        private static void appendCollapsed(StringBuilder collapsed, String stack, long nanos) {
+            long micros = nanos / 1000L;
+            if (micros > 0L) {
+                collapsed.append(stack).append(' ').append(micros).append('\n');
+            }
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package org.purpurmc.purpur.task;
 
 import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import net.minecraft.core.BlockPos;
 import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.block.entity.BeehiveBlockEntity;
 import net.minecraft.world.level.block.entity.BlockEntity;
@@ -10,12 +18,26 @@ import org.bukkit.craftbukkit.entity.CraftPlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.PluginBase;
 import org.bukkit.plugin.messaging.PluginMessageListener;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.purpurmc.purpur.PurpurConfig;
 import org.purpurmc.purpur.network.ClientboundBeehivePayload;
 import org.purpurmc.purpur.network.ServerboundBeehivePayload;
 import org.purpurmc.purpur.util.MinecraftInternalPlugin;
 
+/**
+ * Answers bee count requests of Purpur clients.
+ * <p>
+ * Requests only queue the hive position, limited per player by a token bucket. Once per tick the queued positions
+ * are resolved, looking every hive up at most once per tick no matter how many players asked for it. While a player
+ * keeps asking for the same hive, its count is pushed when it changes and repeated requests are not answered.
+ */
 public class BeehiveTask implements PluginMessageListener {
+    // targeted block info max range specified in client at net.minecraft.client.gui.hud.DebugHud#render
+    private static final double MAX_DISTANCE = 20;
+    // the hive is no longer watched when the client stopped asking for it for this many ticks
+    private static final int WATCH_TIMEOUT = 40;
+    private static final int NO_HIVE = -1;
 
     private static BeehiveTask instance;
 
@@ -27,6 +49,11 @@ public class BeehiveTask implements PluginMessageListener {
     }
 
     private final PluginBase plugin = new MinecraftInternalPlugin();
+    private final Map<ServerPlayer, Viewer> viewers = new Reference2ObjectOpenHashMap<>();
+    private final Map<ServerLevel, Long2IntOpenHashMap> counts = new Reference2ObjectOpenHashMap<>();
+    private final FriendlyByteBuf encodeBuffer = new FriendlyByteBuf(Unpooled.buffer(16));
+    private BukkitTask task;
+    private int tick;
 
     private BeehiveTask() {
     }
@@ -34,34 +61,165 @@ public class BeehiveTask implements PluginMessageListener {
     public void register() {
         Bukkit.getMessenger().registerOutgoingPluginChannel(this.plugin, ClientboundBeehivePayload.PACKET_TYPE.id().toString());
         Bukkit.getMessenger().registerIncomingPluginChannel(this.plugin, ServerboundBeehivePayload.PACKET_TYPE.id().toString(), this);
+        if (this.task == null) {
+            this.task = Bukkit.getScheduler().runTaskTimer(this.plugin, this::tick, 1, 1);
+        }
     }
 
     public void unregister() {
         Bukkit.getMessenger().unregisterOutgoingPluginChannel(this.plugin, ClientboundBeehivePayload.PACKET_TYPE.id().toString());
         Bukkit.getMessenger().unregisterIncomingPluginChannel(this.plugin, ServerboundBeehivePayload.PACKET_TYPE.id().toString());
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        this.viewers.clear();
+        this.counts.clear();
     }
 
     @Override
     public void onPluginMessageReceived(@NotNull String channel, @NotNull Player player, byte[] bytes) {
-        FriendlyByteBuf byteBuf = new FriendlyByteBuf(Unpooled.copiedBuffer(bytes));
-        ServerboundBeehivePayload payload = ServerboundBeehivePayload.STREAM_CODEC.decode(byteBuf);
-
+        if (bytes.length < Long.BYTES) {
+            return;
+        }
         ServerPlayer serverPlayer = ((CraftPlayer) player).getHandle();
+        long pos = decodeRequest(bytes);
 
-        // targeted block info max range specified in client at net.minecraft.client.gui.hud.DebugHud#render
-        if (!payload.pos().getCenter().closerThan(serverPlayer.position(), 20)) return; // Targeted Block info max range is 20
-        if (serverPlayer.level().getChunkIfLoaded(payload.pos()) == null) return;
-
-        BlockEntity blockEntity = serverPlayer.level().getBlockEntity(payload.pos());
-        if (!(blockEntity instanceof BeehiveBlockEntity beehive)) {
+        Viewer viewer = this.viewers.computeIfAbsent(serverPlayer, key -> new Viewer(this.tick));
+        if (viewer.watching && viewer.watchedPos == pos) {
+            // keeps the push alive, the count is sent when it changes
+            viewer.lastRequestTick = this.tick;
+            if (PurpurConfig.beeCountPayloadPushChanges) {
+                return;
+            }
+        }
+        if (viewer.pending.contains(pos) || !viewer.tryAcquire(this.tick)) {
             return;
         }
+        viewer.pending.add(pos);
+    }
+
+    private void tick() {
+        this.tick++;
+        // cleared as a whole so unloaded levels are not kept alive
+        this.counts.clear();
+        Iterator<Map.Entry<ServerPlayer, Viewer>> iterator = this.viewers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ServerPlayer, Viewer> entry = iterator.next();
+            ServerPlayer player = entry.getKey();
+            Viewer viewer = entry.getValue();
+            if (player.hasDisconnected()) {
+                iterator.remove();
+                continue;
+            }
+            ServerLevel level = player.level();
+            if (viewer.watching && (viewer.watchedLevel != level || this.tick - viewer.lastRequestTick > WATCH_TIMEOUT)) {
+                viewer.watching = false;
+                viewer.watchedLevel = null;
+            }
+
+            if (!viewer.pending.isEmpty()) {
+                LongIterator pending = viewer.pending.iterator();
+                while (pending.hasNext()) {
+                    long pos = pending.nextLong();
+                    int count = occupantCount(level, player, pos);
+                    if (count != NO_HIVE) {
+                        send(player, pos, count);
+                        viewer.watch(level, pos, count, this.tick);
+                    }
+                }
+                viewer.pending.clear();
+            } else if (viewer.watching && PurpurConfig.beeCountPayloadPushChanges) {
+                int count = occupantCount(level, player, viewer.watchedPos);
+                if (count == NO_HIVE) {
+                    viewer.watching = false;
+                    viewer.watchedLevel = null;
+                } else if (count != viewer.watchedCount) {
+                    send(player, viewer.watchedPos, count);
+                    viewer.watchedCount = count;
+                }
+            }
+        }
+    }
+
+    private int occupantCount(ServerLevel level, ServerPlayer player, long packedPos) {
+        BlockPos pos = BlockPos.of(packedPos);
+        if (!pos.getCenter().closerThan(player.position(), MAX_DISTANCE)) {
+            return NO_HIVE;
+        }
+        Long2IntOpenHashMap levelCounts = this.counts.computeIfAbsent(level, key -> {
+            Long2IntOpenHashMap map = new Long2IntOpenHashMap();
+            map.defaultReturnValue(Integer.MIN_VALUE);
+            return map;
+        });
+        int count = levelCounts.get(packedPos);
+        if (count == Integer.MIN_VALUE) {
+            count = NO_HIVE;
+            if (level.getChunkIfLoaded(pos) != null) {
+                BlockEntity blockEntity = level.getBlockEntity(pos);
+                if (blockEntity instanceof BeehiveBlockEntity beehive) {
+                    count = beehive.getOccupantCount();
+                }
+            }
+            levelCounts.put(packedPos, count);
+        }
+        return count;
+    }
+
+    private void send(ServerPlayer player, long pos, int count) {
+        byte[] bytes = encodeResponse(this.encodeBuffer, pos, count);
+        player.getBukkitEntity().sendPluginMessage(this.plugin, ClientboundBeehivePayload.PACKET_TYPE.id().toString(), bytes);
+    }
+
+    /**
+     * Reads the packed position of a bee count request.
+     */
+    public static long decodeRequest(byte[] bytes) {
+        return ServerboundBeehivePayload.STREAM_CODEC.decode(new FriendlyByteBuf(Unpooled.wrappedBuffer(bytes))).pos().asLong();
+    }
+
+    /**
+     * Writes a bee count response, reusing {@code buf} between calls.
+     */
+    public static byte[] encodeResponse(FriendlyByteBuf buf, long pos, int count) {
+        buf.clear();
+        ClientboundBeehivePayload.STREAM_CODEC.encode(buf, new ClientboundBeehivePayload(BlockPos.of(pos), count));
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    private static final class Viewer {
+        private final LongOpenHashSet pending = new LongOpenHashSet();
+        private double tokens;
+        private int lastRefillTick;
+        private boolean watching;
+        private ServerLevel watchedLevel;
+        private long watchedPos;
+        private int watchedCount;
+        private int lastRequestTick;
+
+        private Viewer(int tick) {
+            this.tokens = PurpurConfig.beeCountPayloadBurst;
+            this.lastRefillTick = tick;
+        }
 
-        ClientboundBeehivePayload customPacketPayload = new ClientboundBeehivePayload(payload.pos(), beehive.getOccupantCount());
-        FriendlyByteBuf friendlyByteBuf = new FriendlyByteBuf(Unpooled.buffer());
-        ClientboundBeehivePayload.STREAM_CODEC.encode(friendlyByteBuf, customPacketPayload);
-        byte[] byteArray = new byte[friendlyByteBuf.readableBytes()];
-        friendlyByteBuf.readBytes(byteArray);
-        player.sendPluginMessage(this.plugin, customPacketPayload.type().id().toString(), byteArray);
+        private boolean tryAcquire(int tick) {
+            this.tokens = Math.min(PurpurConfig.beeCountPayloadBurst, this.tokens + (tick - this.lastRefillTick) * PurpurConfig.beeCountPayloadRequestsPerSecond / 20.0D);
+            this.lastRefillTick = tick;
+            if (this.tokens < 1.0D) {
+                return false;
+            }
+            this.tokens--;
+            return true;
+        }
+
+        private void watch(ServerLevel level, long pos, int count, int tick) {
+            this.watching = true;
+            this.watchedLevel = level;
+            this.watchedPos = pos;
+            this.watchedCount = count;
+            this.lastRequestTick = tick;
+        }
     }
 }
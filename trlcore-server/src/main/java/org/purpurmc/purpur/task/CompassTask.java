@@ -2,14 +2,19 @@ package org.purpurmc.purpur.task;
 
 import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.text.Component;
-import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
 import net.minecraft.world.item.Items;
+import org.bukkit.craftbukkit.entity.CraftPlayer;
 import org.bukkit.entity.Player;
 import org.purpurmc.purpur.PurpurConfig;
+import org.purpurmc.purpur.util.DegradationLadder;
 
 public class CompassTask extends BossBarTask {
     private static CompassTask instance;
 
+    private static volatile Component[] titles = new Component[0];
+
     private int tick = 0;
 
     public static CompassTask instance() {
@@ -19,26 +24,41 @@ public class CompassTask extends BossBarTask {
         return instance;
     }
 
+    /**
+     * Pre-slices the compass title, one component per position the bar can show. Called on config load.
+     */
+    public static void buildTitles(String title) {
+        Component[] titles = new Component[title.length() + 1];
+        for (int pos = 25; pos + 25 <= title.length(); pos++) {
+            titles[pos] = Component.text(title.substring(pos - 25, pos + 25));
+        }
+        CompassTask.titles = titles;
+    }
+
+    /**
+     * Shows or hides the bar of a player whose main or off hand changed.
+     */
+    public void onHeldItemChange(ServerPlayer player) {
+        if (player.compassBar() || !player.level().purpurConfig.compassItemShowsBossBar) {
+            return;
+        }
+        boolean holding = player.getMainHandItem().getItem() == Items.COMPASS || player.getOffhandItem().getItem() == Items.COMPASS;
+        if (!holding) {
+            removePlayer(player.getBukkitEntity());
+        } else if (!hasPlayer(player.getUUID())) {
+            addPlayer(player.getBukkitEntity());
+        }
+    }
+
     @Override
     public void run() {
-        if (++tick < PurpurConfig.commandCompassBarTickInterval) {
+        if (++tick < PurpurConfig.commandCompassBarTickInterval * DegradationLadder.cosmeticIntervalMultiplier()) {
             return;
         }
         tick = 0;
-
-        MinecraftServer.getServer().getAllLevels().forEach((level) -> {
-            if (level.purpurConfig.compassItemShowsBossBar) {
-                level.players().forEach(player -> {
-                    if (!player.compassBar()) {
-                        if (player.getMainHandItem().getItem() != Items.COMPASS && player.getOffhandItem().getItem() != Items.COMPASS) {
-                            removePlayer(player.getBukkitEntity());
-                        } else if (!hasPlayer(player.getUUID())) {
-                            addPlayer(player.getBukkitEntity());
-                        }
-                    }
-                });
-            }
-        });
+        if (DegradationLadder.pauseBossBars()) {
+            return;
+        }
 
         super.run();
     }
@@ -50,19 +70,28 @@ public class CompassTask extends BossBarTask {
 
     @Override
     void updateBossBar(BossBar bossbar, Player player) {
-        float yaw = player.getLocation().getYaw();
-        int length = PurpurConfig.commandCompassBarTitle.length();
-        int pos = (int) ((normalize(yaw) * (length / 720F)) + (length / 2F));
-        bossbar.name(Component.text(PurpurConfig.commandCompassBarTitle.substring(pos - 25, pos + 25)));
-    }
-
-    private float normalize(float yaw) {
-        while (yaw < -180.0F) {
-            yaw += 360.0F;
+        float yaw;
+        if (player instanceof CraftPlayer craftPlayer) {
+            ServerPlayer handle = craftPlayer.getHandle();
+            if (!handle.compassBar() && !handle.level().purpurConfig.compassItemShowsBossBar) {
+                // shown for holding a compass, but the player moved to a world without that
+                removePlayer(player);
+                return;
+            }
+            yaw = handle.getYRot();
+        } else {
+            yaw = player.getLocation().getYaw();
+        }
+        Component[] titles = CompassTask.titles;
+        int length = titles.length - 1;
+        int pos = (int) ((Mth.wrapDegrees(yaw) * (length / 720F)) + (length / 2F));
+        if (pos < 0 || pos > length) {
+            return;
         }
-        while (yaw > 180.0F) {
-            yaw -= 360.0F;
+        Component title = titles[pos];
+        // titles are shared, so only players that turned into another slice get an update
+        if (title != null && bossbar.name() != title) {
+            bossbar.name(title);
         }
-        return yaw;
     }
 }
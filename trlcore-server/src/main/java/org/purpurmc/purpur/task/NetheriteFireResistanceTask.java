@@ -0,0 +1,72 @@
+package org.purpurmc.purpur.task;
+
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.util.Iterator;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.effect.MobEffectInstance;
+import net.minecraft.world.effect.MobEffects;
+import org.bukkit.event.entity.EntityPotionEffectEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.purpurmc.purpur.PurpurWorldConfig;
+import org.purpurmc.purpur.entity.ArmorSignature;
+import org.purpurmc.purpur.util.MinecraftInternalPlugin;
+
+/**
+ * Keeps fire resistance up for players wearing full netherite armor. Players are added and removed when their
+ * {@link ArmorSignature} changes, so only the players wearing the set are looked at every second.
+ */
+public class NetheriteFireResistanceTask extends BukkitRunnable {
+    private static NetheriteFireResistanceTask instance;
+
+    private final ReferenceOpenHashSet<ServerPlayer> wearers = new ReferenceOpenHashSet<>();
+    private boolean started;
+
+    public static NetheriteFireResistanceTask instance() {
+        if (instance == null) {
+            instance = new NetheriteFireResistanceTask();
+        }
+        return instance;
+    }
+
+    public void onArmorChange(ServerPlayer player, int oldSignature, int newSignature) {
+        if (newSignature == ArmorSignature.FULL_NETHERITE) {
+            if (this.wearers.add(player)) {
+                apply(player);
+            }
+        } else if (oldSignature == ArmorSignature.FULL_NETHERITE) {
+            this.wearers.remove(player);
+        }
+    }
+
+    @Override
+    public void run() {
+        Iterator<ServerPlayer> iterator = this.wearers.iterator();
+        while (iterator.hasNext()) {
+            ServerPlayer player = iterator.next();
+            if (player.hasDisconnected()) {
+                iterator.remove();
+            } else if (player.isAlive()) {
+                apply(player);
+            }
+        }
+    }
+
+    private static void apply(ServerPlayer player) {
+        PurpurWorldConfig config = player.level().purpurConfig;
+        if (config.playerNetheriteFireResistanceDuration > 0) {
+            player.addEffect(new MobEffectInstance(MobEffects.FIRE_RESISTANCE, config.playerNetheriteFireResistanceDuration, config.playerNetheriteFireResistanceAmplifier, config.playerNetheriteFireResistanceAmbient, config.playerNetheriteFireResistanceShowParticles, config.playerNetheriteFireResistanceShowIcon), EntityPotionEffectEvent.Cause.NETHERITE_ARMOR);
+        }
+    }
+
+    public void start() {
+        stop();
+        this.runTaskTimer(new MinecraftInternalPlugin(), 20, 20);
+        this.started = true;
+    }
+
+    public void stop() {
+        if (this.started) {
+            cancel();
+        }
+    }
+}
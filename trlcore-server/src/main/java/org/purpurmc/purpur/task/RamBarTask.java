@@ -9,6 +9,7 @@ import org.purpurmc.purpur.PurpurConfig;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryUsage;
+import org.purpurmc.purpur.util.DegradationLadder;
 
 public class RamBarTask extends BossBarTask {
     private static RamBarTask instance;
@@ -18,6 +19,7 @@ public class RamBarTask extends BossBarTask {
     private long xms = 0L;
     private float percent = 0F;
     private int tick = 0;
+    private volatile Component title;
 
     public static RamBarTask instance() {
         if (instance == null) {
@@ -33,23 +35,34 @@ public class RamBarTask extends BossBarTask {
 
     @Override
     void updateBossBar(BossBar bossbar, Player player) {
+        Component title = this.title;
+        if (title == null) {
+            title = this.title = renderTitle();
+        }
         bossbar.progress(getBossBarProgress());
         bossbar.color(getBossBarColor());
-        bossbar.name(MiniMessage.miniMessage().deserialize(PurpurConfig.commandRamBarTitle,
+        bossbar.name(title);
+    }
+
+    private Component renderTitle() {
+        return MiniMessage.miniMessage().deserialize(PurpurConfig.commandRamBarTitle,
                 Placeholder.component("allocated", format(this.allocated)),
                 Placeholder.component("used", format(this.used)),
                 Placeholder.component("xmx", format(this.xmx)),
                 Placeholder.component("xms", format(this.xms)),
                 Placeholder.unparsed("percent", ((int) (this.percent * 100)) + "%")
-        ));
+        );
     }
 
     @Override
     public void run() {
-        if (++this.tick < PurpurConfig.commandRamBarTickInterval) {
+        if (++this.tick < PurpurConfig.commandRamBarTickInterval * DegradationLadder.cosmeticIntervalMultiplier()) {
             return;
         }
         this.tick = 0;
+        if (DegradationLadder.pauseBossBars()) {
+            return;
+        }
 
         MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
 
@@ -58,6 +71,7 @@ public class RamBarTask extends BossBarTask {
         this.xmx = heap.getMax();
         this.xms = heap.getInit();
         this.percent = Math.max(Math.min((float) this.used / this.xmx, 1.0F), 0.0F);
+        this.title = renderTitle();
 
         super.run();
     }
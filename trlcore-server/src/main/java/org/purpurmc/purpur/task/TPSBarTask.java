@@ -1,18 +1,35 @@
 package org.purpurmc.purpur.task;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import java.util.Arrays;
+import java.util.List;
 import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.purpurmc.purpur.PurpurConfig;
+import org.purpurmc.purpur.metrics.TickHistogram;
+import org.purpurmc.purpur.metrics.TickMetrics;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.purpurmc.purpur.util.DegradationLadder;
 
 public class TPSBarTask extends BossBarTask {
+    // stands in for <ping> in the rendered template, swapped for the player's ping per update
+    private static final String PING_MARKER = "\uE000ping";
+    // distinct ping values seen are few, but drop them all once there are this many
+    private static final int MAX_CACHED_PINGS = 1024;
+
     private static TPSBarTask instance;
     private double tps = 20.0D;
     private double mspt = 0.0D;
     private int tick = 0;
+    private volatile Frame frame;
+    // <ping> rendered through its band's color template, per ping value, for the templates it was rendered with, guarded by this
+    private final Int2ObjectOpenHashMap<Component> pings = new Int2ObjectOpenHashMap<>();
+    private String[] pingTemplates;
 
     public static TPSBarTask instance() {
         if (instance == null) {
@@ -28,28 +45,49 @@ public class TPSBarTask extends BossBarTask {
 
     @Override
     void updateBossBar(BossBar bossbar, Player player) {
-        bossbar.progress(getBossBarProgress());
-        bossbar.color(getBossBarColor());
-        bossbar.name(MiniMessage.miniMessage().deserialize(PurpurConfig.commandTPSBarTitle,
-                Placeholder.component("tps", getTPSColor()),
-                Placeholder.component("mspt", getMSPTColor()),
-                Placeholder.component("ping", getPingColor(player.getPing()))
-        ));
+        Frame frame = this.frame;
+        if (frame == null) {
+            frame = this.frame = createFrame();
+        }
+        bossbar.progress(frame.progress());
+        bossbar.color(frame.color());
+        bossbar.name(frame.perPlayer() ? frame.title(this.getPingComponent(player.getPing())) : frame.rendered());
     }
 
     @Override
     public void run() {
-        if (++tick < PurpurConfig.commandTPSBarTickInterval) {
+        if (++tick < PurpurConfig.commandTPSBarTickInterval * DegradationLadder.cosmeticIntervalMultiplier()) {
             return;
         }
         tick = 0;
+        if (DegradationLadder.pauseBossBars()) {
+            return;
+        }
 
         this.tps = Math.max(Math.min(Bukkit.getTPS()[0], 20.0D), 0.0D);
         this.mspt = Bukkit.getAverageTickTime();
+        this.frame = createFrame();
 
         super.run();
     }
 
+    private Frame createFrame() {
+        String title = PurpurConfig.commandTPSBarTitle;
+        TickHistogram.Snapshot ticks = TickMetrics.server().snapshot(System.nanoTime());
+        TagResolver placeholders = TagResolver.resolver(
+                Placeholder.component("tps", getTPSColor()),
+                Placeholder.component("mspt", getMSPTColor(this.mspt)),
+                Placeholder.component("mspt_p50", getMSPTColor(ticks.p50())),
+                Placeholder.component("mspt_p95", getMSPTColor(ticks.p95())),
+                Placeholder.component("mspt_p99", getMSPTColor(ticks.p99())),
+                Placeholder.component("mspt_max", getMSPTColor(ticks.max())),
+                Placeholder.unparsed("over_budget", String.valueOf(ticks.overBudget()))
+        );
+        boolean perPlayer = title.contains("<ping>");
+        Component rendered = MiniMessage.miniMessage().deserialize(title, placeholders, Placeholder.component("ping", Component.text(PING_MARKER)));
+        return new Frame(getBossBarProgress(), getBossBarColor(), rendered, perPlayer);
+    }
+
     private float getBossBarProgress() {
         if (PurpurConfig.commandTPSBarProgressFillMode == FillMode.MSPT) {
             return Math.max(Math.min((float) mspt / 50.0F, 1.0F), 0.0F);
@@ -74,7 +112,7 @@ public class TPSBarTask extends BossBarTask {
 
     private boolean isGood(FillMode mode, int ping) {
         if (mode == FillMode.MSPT) {
-            return mspt < 40;
+            return isGoodMSPT(mspt);
         } else if (mode == FillMode.TPS) {
             return tps >= 19;
         } else if (mode == FillMode.PING) {
@@ -84,13 +122,17 @@ public class TPSBarTask extends BossBarTask {
         }
     }
 
+    private static boolean isGoodMSPT(double mspt) {
+        return mspt < 40;
+    }
+
     private boolean isMedium(FillMode mode) {
         return isMedium(mode, 0);
     }
 
     private boolean isMedium(FillMode mode, int ping) {
         if (mode == FillMode.MSPT) {
-            return mspt < 50;
+            return isMediumMSPT(mspt);
         } else if (mode == FillMode.TPS) {
             return tps >= 15;
         } else if (mode == FillMode.PING) {
@@ -100,6 +142,10 @@ public class TPSBarTask extends BossBarTask {
         }
     }
 
+    private static boolean isMediumMSPT(double mspt) {
+        return mspt < 50;
+    }
+
     private Component getTPSColor() {
         String color;
         if (isGood(FillMode.TPS)) {
@@ -112,11 +158,11 @@ public class TPSBarTask extends BossBarTask {
         return MiniMessage.miniMessage().deserialize(color, Placeholder.parsed("text", String.format("%.2f", tps)));
     }
 
-    private Component getMSPTColor() {
+    private Component getMSPTColor(double mspt) {
         String color;
-        if (isGood(FillMode.MSPT)) {
+        if (isGoodMSPT(mspt)) {
             color = PurpurConfig.commandTPSBarTextColorGood;
-        } else if (isMedium(FillMode.MSPT)) {
+        } else if (isMediumMSPT(mspt)) {
             color = PurpurConfig.commandTPSBarTextColorMedium;
         } else {
             color = PurpurConfig.commandTPSBarTextColorLow;
@@ -124,6 +170,23 @@ public class TPSBarTask extends BossBarTask {
         return MiniMessage.miniMessage().deserialize(color, Placeholder.parsed("text", String.format("%.2f", mspt)));
     }
 
+    private synchronized Component getPingComponent(int ping) {
+        String good = PurpurConfig.commandTPSBarTextColorGood;
+        String medium = PurpurConfig.commandTPSBarTextColorMedium;
+        String low = PurpurConfig.commandTPSBarTextColorLow;
+        String[] templates = this.pingTemplates;
+        if (templates == null || templates[0] != good || templates[1] != medium || templates[2] != low || this.pings.size() >= MAX_CACHED_PINGS) {
+            this.pingTemplates = new String[]{good, medium, low};
+            this.pings.clear();
+        }
+        Component component = this.pings.get(ping);
+        if (component == null) {
+            component = getPingColor(ping);
+            this.pings.put(ping, component);
+        }
+        return component;
+    }
+
     private Component getPingColor(int ping) {
         String color;
         if (isGood(FillMode.PING, ping)) {
@@ -133,7 +196,36 @@ public class TPSBarTask extends BossBarTask {
         } else {
             color = PurpurConfig.commandTPSBarTextColorLow;
         }
-        return MiniMessage.miniMessage().deserialize(color, Placeholder.parsed("text", String.format("%s", ping)));
+        return MiniMessage.miniMessage().deserialize(color, Placeholder.parsed("text", String.valueOf(ping)));
+    }
+
+    // everything shared by all players for one interval, only the <ping> fragment differs per player
+    private record Frame(float progress, BossBar.Color color, Component rendered, boolean perPlayer) {
+        Component title(Component ping) {
+            return withPing(this.rendered, ping);
+        }
+
+        private static Component withPing(Component component, Component ping) {
+            if (component instanceof TextComponent text && text.content().equals(PING_MARKER)) {
+                return ping;
+            }
+            List<Component> children = component.children();
+            if (children.isEmpty()) {
+                return component;
+            }
+            Component[] replaced = null;
+            for (int i = 0; i < children.size(); i++) {
+                Component child = children.get(i);
+                Component swapped = withPing(child, ping);
+                if (swapped != child) {
+                    if (replaced == null) {
+                        replaced = children.toArray(new Component[0]);
+                    }
+                    replaced[i] = swapped;
+                }
+            }
+            return replaced == null ? component : component.children(Arrays.asList(replaced));
+        }
     }
 
     public enum FillMode {
@@ -0,0 +1,105 @@
+package org.purpurmc.purpur.util;
+
+import ca.spottedleaf.moonrise.common.list.ReferenceList;
+import ca.spottedleaf.moonrise.common.misc.NearbyPlayers;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.purpurmc.purpur.PurpurWorldConfig;
+
+/**
+ * Reduced simulation around players that are AFK.
+ * <p>
+ * AFK players get a lower simulation distance, which the chunk loader applies by only moving the ticket ring that
+ * changed. Chunks within the simulation distance of AFK players only get random ticks every few ticks. Mob spawn
+ * eligibility is handled by the chunk map, which ignores AFK players when looking for one close enough.
+ */
+public final class AfkSimulationProfile {
+    private static final int NOT_APPLIED = Integer.MIN_VALUE;
+
+    private final ServerLevel level;
+    private int afkPlayers;
+    private int reducedChunks;
+    private int lastReducedChunks;
+
+    public AfkSimulationProfile(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Applies or restores the simulation distance of players whose AFK state changed. Called once per tick on the
+     * main thread, so AFK state flipping on another thread never touches the chunk loader.
+     */
+    public void tick() {
+        this.lastReducedChunks = this.reducedChunks;
+        this.reducedChunks = 0;
+        this.afkPlayers = 0;
+
+        PurpurWorldConfig config = this.level.purpurConfig;
+        for (ServerPlayer player : this.level.players()) {
+            boolean reduce = config.afkSimulationEnabled && player.isAfk();
+            if (reduce) {
+                this.afkPlayers++;
+            }
+            if (reduce == (player.afkSimulationRestoreDistance != NOT_APPLIED) || player.moonrise$getChunkLoader() == null) {
+                continue;
+            }
+            if (reduce) {
+                int current = player.getBukkitEntity().getSimulationDistance();
+                player.afkSimulationRestoreDistance = player.moonrise$getViewDistanceHolder().getViewDistances().tickViewDistance();
+                if (config.afkSimulationDistance < current) {
+                    player.moonrise$getViewDistanceHolder().setTickViewDistance(config.afkSimulationDistance);
+                }
+            } else {
+                player.moonrise$getViewDistanceHolder().setTickViewDistance(player.afkSimulationRestoreDistance);
+                player.afkSimulationRestoreDistance = NOT_APPLIED;
+            }
+        }
+    }
+
+    /**
+     * Returns the random tick speed to use for the chunk this tick.
+     */
+    public int randomTickSpeed(LevelChunk chunk, int randomTickSpeed) {
+        if (this.afkPlayers == 0) {
+            return randomTickSpeed;
+        }
+        ChunkPos pos = chunk.getPos();
+        if (!this.isHeldOnlyByAfkPlayers(pos)) {
+            return randomTickSpeed;
+        }
+        this.reducedChunks++;
+        int interval = this.level.purpurConfig.afkSimulationRandomTickInterval;
+        if (interval <= 1) {
+            return randomTickSpeed;
+        }
+        // spread the chunks over the interval instead of ticking all of them at once
+        return (this.level.getGameTime() + pos.x * 31L + pos.z) % interval == 0 ? randomTickSpeed : 0;
+    }
+
+    private boolean isHeldOnlyByAfkPlayers(ChunkPos pos) {
+        ReferenceList<ServerPlayer> players = this.level.moonrise$getNearbyPlayers().getPlayersByChunk(pos.x, pos.z, NearbyPlayers.NearbyMapType.TICK_VIEW_DISTANCE);
+        if (players == null || players.size() == 0) {
+            return false;
+        }
+        ServerPlayer[] raw = players.getRawDataUnchecked();
+        for (int i = 0, len = players.size(); i < len; i++) {
+            if (!raw[i].isAfk()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getAfkPlayers() {
+        return this.afkPlayers;
+    }
+
+    /**
+     * Returns the number of chunks that ran with reduced random ticks on the last full tick.
+     */
+    public int getReducedChunks() {
+        return this.lastReducedChunks;
+    }
+}
@@ -0,0 +1,222 @@
+package org.purpurmc.purpur.util;
+
+import ca.spottedleaf.moonrise.common.list.ReferenceList;
+import ca.spottedleaf.moonrise.common.misc.NearbyPlayers;
+import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.NaturalSpawner;
+import org.bukkit.Bukkit;
+
+/**
+ * Computes the natural spawner state of a level off the main thread.
+ * <p>
+ * The entity list is copied on the main thread and counted on a worker, the counts per chunk are then handed
+ * to the players in range on the main thread, so player mob counts are never written from two threads.
+ * While a state is being computed the previous one is kept, together with the player counts it produced,
+ * so mobs spawned in the meantime still count towards the caps. Mobs spawned after the entity list was copied
+ * are carried over onto the new counts once it is ready.
+ */
+public final class AsyncSpawnState {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("Purpur Async Mob Spawning")
+        .setDaemon(true)
+        .setUncaughtExceptionHandler((thread, throwable) -> Bukkit.getLogger().log(Level.SEVERE, "Uncaught exception in " + thread.getName(), throwable))
+        .build());
+
+    private final ServerLevel level;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Reference2ObjectOpenHashMap<ServerPlayer, int[]> baseline = new Reference2ObjectOpenHashMap<>();
+    private volatile Result result;
+
+    public AsyncSpawnState(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the spawn state to use this tick and queues the next computation. Must be called on the main thread
+     * in place of resetting the player mob counts and creating the state synchronously.
+     *
+     * @param spawnableChunkCount the number of chunks mobs may spawn in
+     * @param last the state returned on the previous tick, or null
+     */
+    public NaturalSpawner.SpawnState tick(int spawnableChunkCount, NaturalSpawner.SpawnState last) {
+        List<ServerPlayer> players = this.level.players();
+        for (ServerPlayer player : players) {
+            // per player mob spawning backoff bleeds every tick, same as the synchronous path
+            for (int i = 0; i < ServerPlayer.MOBCATEGORY_TOTAL_ENUMS; i++) {
+                player.mobBackoffCounts[i] = Math.max(0, player.mobBackoffCounts[i] - 1);
+            }
+        }
+
+        Result result = this.result;
+        if (result == null && last != null && this.running.get()) {
+            return last;
+        }
+
+        NaturalSpawner.SpawnState state;
+        if (result != null) {
+            this.result = null;
+            NearbyPlayers nearbyPlayers = this.level.moonrise$getNearbyPlayers();
+            handOut(players, player -> player.mobCounts, this.baseline, result.countsByChunk, (chunkX, chunkZ, action) -> {
+                ReferenceList<ServerPlayer> inRange = nearbyPlayers.getPlayersByChunk(chunkX, chunkZ, NearbyPlayers.NearbyMapType.TICK_VIEW_DISTANCE);
+                if (inRange == null) {
+                    return;
+                }
+                ServerPlayer[] raw = inRange.getRawDataUnchecked();
+                for (int i = 0, len = inRange.size(); i < len; i++) {
+                    action.accept(raw[i]);
+                }
+            });
+            state = result.state;
+        } else {
+            // nothing to reuse (first tick, or the last computation failed), count on the main thread
+            for (ServerPlayer player : players) {
+                Arrays.fill(player.mobCounts, 0);
+            }
+            state = NaturalSpawner.createState(spawnableChunkCount, this.level.getAllEntities(), this.level.getChunkSource()::getFullChunk, null, true);
+        }
+
+        this.submit(spawnableChunkCount, players);
+        return state;
+    }
+
+    private void submit(int spawnableChunkCount, List<ServerPlayer> players) {
+        if (!this.running.compareAndSet(false, true)) {
+            return;
+        }
+        snapshot(players, player -> player.mobCounts, this.baseline);
+        List<Entity> entities = new ArrayList<>();
+        for (Entity entity : this.level.getAllEntities()) {
+            entities.add(entity);
+        }
+        try {
+            EXECUTOR.execute(() -> {
+                try {
+                    this.result = this.compute(spawnableChunkCount, entities);
+                } catch (Throwable t) {
+                    Bukkit.getLogger().log(Level.SEVERE, "Failed to compute mob spawn state for " + this.level.getWorld().getName(), t);
+                } finally {
+                    this.running.set(false);
+                }
+            });
+        } catch (Throwable t) {
+            this.running.set(false);
+            throw t;
+        }
+    }
+
+    private Result compute(int spawnableChunkCount, List<Entity> entities) {
+        Long2ObjectOpenHashMap<int[]> countsByChunk = new Long2ObjectOpenHashMap<>();
+        TrackingIterable tracking = new TrackingIterable(entities);
+        NaturalSpawner.ChunkGetter chunkGetter = (chunkKey, consumer) -> this.level.getChunkSource().getFullChunk(chunkKey, chunk -> {
+            consumer.accept(chunk);
+            // the spawner only queries the chunk for entities it counts, which are exactly the ones
+            // it would otherwise have added to the mob counts of nearby players
+            Entity entity = tracking.current;
+            count(countsByChunk, entity.chunkPosition().toLong(), entity.getType().getCategory().ordinal(), ServerPlayer.MOBCATEGORY_TOTAL_ENUMS);
+        });
+        NaturalSpawner.SpawnState state = NaturalSpawner.createState(spawnableChunkCount, tracking, chunkGetter, null, false);
+        return new Result(state, countsByChunk);
+    }
+
+    /**
+     * Remembers the counts of the players when the entities are copied for the worker.
+     */
+    static <P> void snapshot(Iterable<P> players, Function<P, int[]> mobCounts, Map<P, int[]> baseline) {
+        baseline.clear();
+        for (P player : players) {
+            baseline.put(player, mobCounts.apply(player).clone());
+        }
+    }
+
+    /**
+     * Hands the counts per chunk of a finished computation to the players in range, on top of whatever the players
+     * had spawned since the entities were copied.
+     */
+    static <P> void handOut(Iterable<P> players, Function<P, int[]> mobCounts, Map<P, int[]> baseline, Long2ObjectMap<int[]> countsByChunk, PlayersInRange<P> playersInRange) {
+        for (P player : players) {
+            carryOver(mobCounts.apply(player), baseline.get(player));
+        }
+        for (Long2ObjectMap.Entry<int[]> entry : countsByChunk.long2ObjectEntrySet()) {
+            long chunkKey = entry.getLongKey();
+            int[] counts = entry.getValue();
+            playersInRange.forEach(CoordinateUtils.getChunkX(chunkKey), CoordinateUtils.getChunkZ(chunkKey), player -> add(mobCounts.apply(player), counts));
+        }
+    }
+
+    /**
+     * Drops the counts a player had when the entities were copied, keeping whatever was spawned since.
+     */
+    static void carryOver(int[] counts, int[] before) {
+        if (before == null) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = Math.max(0, counts[i] - before[i]);
+        }
+    }
+
+    static void count(Long2ObjectMap<int[]> countsByChunk, long chunkKey, int category, int categories) {
+        int[] counts = countsByChunk.get(chunkKey);
+        if (counts == null) {
+            countsByChunk.put(chunkKey, counts = new int[categories]);
+        }
+        counts[category]++;
+    }
+
+    static void add(int[] mobCounts, int[] chunkCounts) {
+        for (int category = 0; category < mobCounts.length; category++) {
+            mobCounts[category] += chunkCounts[category];
+        }
+    }
+
+    @FunctionalInterface
+    interface PlayersInRange<P> {
+        void forEach(int chunkX, int chunkZ, Consumer<P> action);
+    }
+
+    private record Result(NaturalSpawner.SpawnState state, Long2ObjectMap<int[]> countsByChunk) {
+    }
+
+    private static final class TrackingIterable implements Iterable<Entity> {
+        private final List<Entity> entities;
+        private Entity current;
+
+        private TrackingIterable(List<Entity> entities) {
+            this.entities = entities;
+        }
+
+        @Override
+        public Iterator<Entity> iterator() {
+            Iterator<Entity> iterator = this.entities.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Entity next() {
+                    return TrackingIterable.this.current = iterator.next();
+                }
+            };
+        }
+    }
+}
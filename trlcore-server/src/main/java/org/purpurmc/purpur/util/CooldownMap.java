@@ -0,0 +1,221 @@
+package org.purpurmc.purpur.util;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import net.minecraft.core.UUIDUtil;
+
+/**
+ * An open addressing map from a {@link UUID} (plus an optional int, such as a registry id) to an absolute expiry
+ * time, stored in flat primitive arrays so neither lookups nor updates allocate.
+ * <p>
+ * Expired entries are treated as absent and purged lazily: when found by a lookup, before the table grows, or by
+ * an explicit {@link #purge(long)}. Not thread-safe.
+ */
+public final class CooldownMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+    public static final Codec<CooldownMap> CODEC = Entry.CODEC.listOf().xmap(entries -> {
+        CooldownMap map = new CooldownMap();
+        for (Entry entry : entries) {
+            map.put(entry.uuid(), entry.extra(), entry.expiry(), EMPTY);
+        }
+        return map;
+    }, map -> {
+        List<Entry> entries = new ArrayList<>(map.size());
+        map.forEach((mostBits, leastBits, extra, expiry) -> entries.add(new Entry(new UUID(mostBits, leastBits), extra, expiry)));
+        return entries;
+    });
+
+    private long[] most;
+    private long[] least;
+    private int[] extra;
+    private long[] expiry;
+    private int mask;
+    private int size;
+
+    public CooldownMap() {
+        this.allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Returns whether the key has a cooldown that expires after {@code time}.
+     */
+    public boolean isCoolingDown(UUID uuid, int extra, long time) {
+        return this.getExpiry(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), extra, time) != EMPTY;
+    }
+
+    /**
+     * Returns the expiry time of the key, or {@link Long#MIN_VALUE} if it has no cooldown at {@code time}.
+     */
+    public long getExpiry(long mostBits, long leastBits, int extra, long time) {
+        int pos = this.find(mostBits, leastBits, extra);
+        if (pos < 0) {
+            return EMPTY;
+        }
+        long expiry = this.expiry[pos];
+        if (expiry <= time) {
+            this.removeAt(pos);
+            return EMPTY;
+        }
+        return expiry;
+    }
+
+    public void put(UUID uuid, int extra, long expiry, long time) {
+        this.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), extra, expiry, time);
+    }
+
+    /**
+     * Sets the expiry time of the key, replacing any previous cooldown.
+     *
+     * @param time the current time, used to purge expired entries before growing
+     */
+    public void put(long mostBits, long leastBits, int extra, long expiry, long time) {
+        if (expiry == EMPTY) {
+            throw new IllegalArgumentException("Invalid expiry " + expiry);
+        }
+        int pos = this.find(mostBits, leastBits, extra);
+        if (pos >= 0) {
+            this.expiry[pos] = expiry;
+            return;
+        }
+        if ((this.size + 1) * 2 > this.mask + 1) {
+            this.purge(time);
+            if ((this.size + 1) * 4 > this.mask + 1) {
+                this.rehash((this.mask + 1) * 2);
+            }
+        }
+        this.insert(mostBits, leastBits, extra, expiry);
+    }
+
+    public void remove(UUID uuid, int extra) {
+        int pos = this.find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), extra);
+        if (pos >= 0) {
+            this.removeAt(pos);
+        }
+    }
+
+    /**
+     * Removes every entry that expires at or before {@code time}.
+     */
+    public void purge(long time) {
+        for (int pos = 0; pos <= this.mask; ) {
+            long expiry = this.expiry[pos];
+            if (expiry != EMPTY && expiry <= time) {
+                // removing shifts a later entry into this slot, check it again
+                this.removeAt(pos);
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(this.expiry, EMPTY);
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int pos = 0; pos <= this.mask; pos++) {
+            if (this.expiry[pos] != EMPTY) {
+                consumer.accept(this.most[pos], this.least[pos], this.extra[pos], this.expiry[pos]);
+            }
+        }
+    }
+
+    private int find(long mostBits, long leastBits, int extra) {
+        for (int pos = hash(mostBits, leastBits, extra) & this.mask; this.expiry[pos] != EMPTY; pos = (pos + 1) & this.mask) {
+            if (this.most[pos] == mostBits && this.least[pos] == leastBits && this.extra[pos] == extra) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long mostBits, long leastBits, int extra, long expiry) {
+        int pos = hash(mostBits, leastBits, extra) & this.mask;
+        while (this.expiry[pos] != EMPTY) {
+            pos = (pos + 1) & this.mask;
+        }
+        this.most[pos] = mostBits;
+        this.least[pos] = leastBits;
+        this.extra[pos] = extra;
+        this.expiry[pos] = expiry;
+        this.size++;
+    }
+
+    private void removeAt(int pos) {
+        this.size--;
+        // shift following entries of the same run back, so lookups never stop at a hole before their entry
+        for (;;) {
+            int last = pos;
+            pos = (pos + 1) & this.mask;
+            for (;;) {
+                if (this.expiry[pos] == EMPTY) {
+                    this.expiry[last] = EMPTY;
+                    return;
+                }
+                int slot = hash(this.most[pos], this.least[pos], this.extra[pos]) & this.mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & this.mask;
+            }
+            this.most[last] = this.most[pos];
+            this.least[last] = this.least[pos];
+            this.extra[last] = this.extra[pos];
+            this.expiry[last] = this.expiry[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] most = this.most;
+        long[] least = this.least;
+        int[] extra = this.extra;
+        long[] expiry = this.expiry;
+        this.allocate(capacity);
+        this.size = 0;
+        for (int pos = 0; pos < expiry.length; pos++) {
+            if (expiry[pos] != EMPTY) {
+                this.insert(most[pos], least[pos], extra[pos], expiry[pos]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.most = new long[capacity];
+        this.least = new long[capacity];
+        this.extra = new int[capacity];
+        this.expiry = new long[capacity];
+        Arrays.fill(this.expiry, EMPTY);
+        this.mask = capacity - 1;
+    }
+
+    private static int hash(long mostBits, long leastBits, int extra) {
+        long h = mostBits * 0x9E3779B97F4A7C15L ^ leastBits ^ (long) extra * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private record Entry(UUID uuid, int extra, long expiry) {
+        private static final Codec<Entry> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            UUIDUtil.CODEC.fieldOf("uuid").forGetter(Entry::uuid),
+            Codec.INT.optionalFieldOf("extra", 0).forGetter(Entry::extra),
+            Codec.LONG.fieldOf("expiry").forGetter(Entry::expiry)
+        ).apply(instance, Entry::new));
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long mostBits, long leastBits, int extra, long expiry);
+    }
+}
@@ -0,0 +1,157 @@
+package org.purpurmc.purpur.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.SpawnCategory;
+import org.purpurmc.purpur.PurpurConfig;
+import org.purpurmc.purpur.event.DegradationStageChangeEvent;
+import org.spigotmc.SpigotWorldConfig;
+
+/**
+ * Sheds load in configured stages while the average tick time stays too high.
+ * <p>
+ * A stage is entered once the average tick time stayed at or above its threshold for
+ * {@code escalate-after-ticks} ticks, and left once it stayed below the threshold minus
+ * {@code recovery-margin-mspt} for {@code recover-after-ticks} ticks, so the server doesn't flap between stages.
+ * <p>
+ * Activation ranges and spawn limits are scaled from the values the worlds had when load shedding started, and
+ * restored from those once the server is back at stage 0. The inactive goal selector interval and boss bar tasks
+ * read the current stage directly.
+ */
+public final class DegradationLadder {
+    private static final Map<String, Baseline> baselines = new HashMap<>();
+    private static volatile Stage current = Stage.NONE;
+    private static int stage;
+    private static int escalateTicks;
+    private static int recoverTicks;
+
+    private DegradationLadder() {
+    }
+
+    public static int getStage() {
+        return stage;
+    }
+
+    public static int inactiveTickIntervalMultiplier() {
+        return current.inactiveTickIntervalMultiplier();
+    }
+
+    public static int cosmeticIntervalMultiplier() {
+        return current.cosmeticIntervalMultiplier();
+    }
+
+    public static boolean pauseBossBars() {
+        return current.pauseBossBars();
+    }
+
+    /**
+     * Called once per tick on the main thread.
+     */
+    public static void tick() {
+        List<Stage> stages = PurpurConfig.degradationStages;
+        if (!PurpurConfig.degradationEnabled || stage > stages.size()) {
+            // disabled or stages removed by a reload, give everything back
+            if (stage != 0) {
+                setStage(0);
+            }
+            return;
+        }
+
+        double mspt = Bukkit.getAverageTickTime();
+        if (stage < stages.size() && mspt >= stages.get(stage).mspt()) {
+            recoverTicks = 0;
+            if (++escalateTicks >= PurpurConfig.degradationEscalateTicks) {
+                escalateTicks = 0;
+                if (callEvent(stage + 1, mspt)) {
+                    Bukkit.getLogger().warning(String.format("Average tick time is %.1fms, shedding load: degradation stage %d -> %d", mspt, stage, stage + 1));
+                    setStage(stage + 1);
+                }
+            }
+        } else if (stage > 0 && mspt < stages.get(stage - 1).mspt() - PurpurConfig.degradationRecoveryMargin) {
+            escalateTicks = 0;
+            if (++recoverTicks >= PurpurConfig.degradationRecoverTicks) {
+                recoverTicks = 0;
+                if (callEvent(stage - 1, mspt)) {
+                    Bukkit.getLogger().info(String.format("Average tick time is %.1fms, recovering: degradation stage %d -> %d", mspt, stage, stage - 1));
+                    setStage(stage - 1);
+                }
+            }
+        } else {
+            escalateTicks = 0;
+            recoverTicks = 0;
+        }
+    }
+
+    private static boolean callEvent(int newStage, double mspt) {
+        return new DegradationStageChangeEvent(stage, newStage, mspt).callEvent();
+    }
+
+    private static void setStage(int newStage) {
+        stage = newStage;
+        current = newStage == 0 ? Stage.NONE : PurpurConfig.degradationStages.get(newStage - 1);
+        escalateTicks = 0;
+        recoverTicks = 0;
+
+        for (ServerLevel level : MinecraftServer.getServer().getAllLevels()) {
+            World world = level.getWorld();
+            if (newStage == 0) {
+                Baseline baseline = baselines.get(world.getName());
+                if (baseline != null) {
+                    baseline.restore(level.spigotConfig, world);
+                }
+            } else {
+                baselines.computeIfAbsent(world.getName(), name -> Baseline.capture(level.spigotConfig, world)).apply(level.spigotConfig, world, current);
+            }
+        }
+        if (newStage == 0) {
+            baselines.clear();
+        }
+    }
+
+    /**
+     * One stage of the ladder, entered at {@code mspt}.
+     */
+    public record Stage(double mspt, double activationRangeMultiplier, double spawnCapMultiplier, int inactiveTickIntervalMultiplier, int cosmeticIntervalMultiplier, boolean pauseBossBars) {
+        public static final Stage NONE = new Stage(0.0D, 1.0D, 1.0D, 1, 1, false);
+    }
+
+    private record Baseline(int[] activationRanges, int[] spawnLimits) {
+        private static final SpawnCategory[] CATEGORIES = {SpawnCategory.MONSTER, SpawnCategory.ANIMAL, SpawnCategory.WATER_ANIMAL, SpawnCategory.WATER_AMBIENT, SpawnCategory.WATER_UNDERGROUND_CREATURE, SpawnCategory.AMBIENT, SpawnCategory.AXOLOTL};
+
+        private static Baseline capture(SpigotWorldConfig config, World world) {
+            int[] ranges = {config.animalActivationRange, config.monsterActivationRange, config.raiderActivationRange, config.miscActivationRange, config.waterActivationRange, config.villagerActivationRange, config.flyingMonsterActivationRange};
+            int[] limits = new int[CATEGORIES.length];
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                limits[i] = world.getSpawnLimit(CATEGORIES[i]);
+            }
+            return new Baseline(ranges, limits);
+        }
+
+        private void apply(SpigotWorldConfig config, World world, Stage stage) {
+            config.animalActivationRange = scale(this.activationRanges[0], stage.activationRangeMultiplier());
+            config.monsterActivationRange = scale(this.activationRanges[1], stage.activationRangeMultiplier());
+            config.raiderActivationRange = scale(this.activationRanges[2], stage.activationRangeMultiplier());
+            config.miscActivationRange = scale(this.activationRanges[3], stage.activationRangeMultiplier());
+            config.waterActivationRange = scale(this.activationRanges[4], stage.activationRangeMultiplier());
+            config.villagerActivationRange = scale(this.activationRanges[5], stage.activationRangeMultiplier());
+            config.flyingMonsterActivationRange = scale(this.activationRanges[6], stage.activationRangeMultiplier());
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                world.setSpawnLimit(CATEGORIES[i], scale(this.spawnLimits[i], stage.spawnCapMultiplier()));
+            }
+        }
+
+        private void restore(SpigotWorldConfig config, World world) {
+            this.apply(config, world, Stage.NONE);
+        }
+
+        private static int scale(int value, double multiplier) {
+            // negative values disable the range or limit, keep them as they are
+            return value <= 0 ? value : Math.max(1, (int) Math.round(value * multiplier));
+        }
+    }
+}
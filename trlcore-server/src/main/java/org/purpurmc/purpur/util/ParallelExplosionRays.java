@@ -0,0 +1,306 @@
+package org.purpurmc.purpur.util;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Explosion;
+import net.minecraft.world.level.ExplosionDamageCalculator;
+import net.minecraft.world.level.PathNavigationRegion;
+import net.minecraft.world.level.ServerExplosion;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.piston.PistonHeadBlock;
+import net.minecraft.world.level.block.piston.PistonMovingBlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.phys.Vec3;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+import org.purpurmc.purpur.PurpurConfig;
+
+/**
+ * Casts the rays of large explosions on several threads.
+ * <p>
+ * The strength of every ray is drawn from the level's random on the main thread, in the same order as when casting
+ * the rays one after the other. The workers read the blocks through a {@link PathNavigationRegion} while the main
+ * thread waits for them, so nothing changes underneath. Every ray records the blocks it reaches with strength left
+ * and how much, and back on the main thread the blocks are decided in ray order, each once with the strength of the
+ * first ray that reached it, like the block cache of the serial path does. This gives the same blocks in the same
+ * order as the serial path.
+ * <p>
+ * The serial path loads the chunks its rays reach, which the workers can't do. Explosions that can reach a chunk
+ * that isn't loaded are left to {@link #calculateSerial}, which shares the ray march and the decisions with the
+ * parallel path and only differs in reading the level on the calling thread.
+ */
+public final class ParallelExplosionRays {
+    private static final int GRID = 16;
+    // rays per task
+    private static final int BATCH = 64;
+    private static final double[] RAYS;
+
+    static {
+        DoubleArrayList rays = new DoubleArrayList();
+        for (int x = 0; x < GRID; x++) {
+            for (int y = 0; y < GRID; y++) {
+                for (int z = 0; z < GRID; z++) {
+                    if (x == 0 || x == GRID - 1 || y == 0 || y == GRID - 1 || z == 0 || z == GRID - 1) {
+                        // same float to double steps as vanilla, so the rays end up on the same blocks
+                        double dx = x / 15.0F * 2.0F - 1.0F;
+                        double dy = y / 15.0F * 2.0F - 1.0F;
+                        double dz = z / 15.0F * 2.0F - 1.0F;
+                        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                        rays.add(dx / length);
+                        rays.add(dy / length);
+                        rays.add(dz / length);
+                    }
+                }
+            }
+        }
+        RAYS = rays.toDoubleArray();
+    }
+
+    private static ForkJoinPool pool;
+    private static int poolThreads;
+
+    private ParallelExplosionRays() {
+    }
+
+    public static boolean shouldUse(float radius) {
+        return PurpurConfig.parallelExplosionRays && radius >= PurpurConfig.parallelExplosionRaysMinRadius;
+    }
+
+    /**
+     * @return the blocks to destroy, or null if the rays can reach a chunk that isn't loaded
+     */
+    public static @Nullable List<BlockPos> calculateExplodedPositions(ServerExplosion explosion, ServerLevel level, Vec3 center, float radius, ExplosionDamageCalculator damageCalculator) {
+        PathNavigationRegion region = region(level, center, radius);
+        if (region == null) {
+            return null;
+        }
+        return explode(explosion, level, region, center, radius, damageCalculator, LongSets.EMPTY_SET);
+    }
+
+    /**
+     * Casts the rays one after the other on the calling thread, loading the chunks they reach. This is the ray loop of
+     * {@link ServerExplosion} the parallel path has to match, used when the parallel path can't take an explosion.
+     *
+     * @return the blocks to destroy
+     */
+    public static List<BlockPos> calculateSerial(ServerExplosion explosion, ServerLevel level, Vec3 center, float radius, ExplosionDamageCalculator damageCalculator) {
+        return explode(explosion, level, null, center, radius, damageCalculator, LongSets.EMPTY_SET);
+    }
+
+    /**
+     * Casts the rays of {@code count} explosions going off one after the other at the same spot. When the explosion
+     * destroys blocks, the rays of every explosion go through the blocks the earlier ones destroyed, as if these were
+     * air already. The rays are cast on several threads if {@link #shouldUse} allows it and the chunks are loaded.
+     *
+     * @return the blocks to destroy, in the order the explosions destroy them
+     */
+    public static List<BlockPos> calculateMerged(ServerExplosion explosion, ServerLevel level, Vec3 center, float radius, ExplosionDamageCalculator damageCalculator, int count) {
+        PathNavigationRegion region = shouldUse(radius) ? region(level, center, radius) : null;
+        Explosion.BlockInteraction interaction = explosion.getBlockInteraction();
+        boolean destroys = interaction == Explosion.BlockInteraction.DESTROY || interaction == Explosion.BlockInteraction.DESTROY_WITH_DECAY;
+        LongOpenHashSet destroyed = new LongOpenHashSet();
+        List<BlockPos> list = new ObjectArrayList<>();
+        for (int i = 0; i < count; i++) {
+            for (BlockPos pos : explode(explosion, level, region, center, radius, damageCalculator, destroys ? destroyed : LongSets.EMPTY_SET)) {
+                if (destroyed.add(pos.asLong())) {
+                    list.add(pos);
+                }
+            }
+        }
+        return list;
+    }
+
+    // the blocks the rays can reach, or null if part of them isn't loaded
+    private static @Nullable PathNavigationRegion region(ServerLevel level, Vec3 center, float radius) {
+        // the strongest ray loses 0.225 per step of 0.3 blocks
+        int reach = Mth.ceil(radius * 1.3F / 0.22500001F * 0.3F) + 1;
+        BlockPos origin = BlockPos.containing(center);
+        BlockPos from = origin.offset(-reach, -reach, -reach);
+        BlockPos to = origin.offset(reach, reach, reach);
+        for (int chunkX = from.getX() >> 4; chunkX <= to.getX() >> 4; chunkX++) {
+            for (int chunkZ = from.getZ() >> 4; chunkZ <= to.getZ() >> 4; chunkZ++) {
+                if (level.getChunkIfLoaded(chunkX, chunkZ) == null) {
+                    return null;
+                }
+            }
+        }
+        return new PathNavigationRegion(level, from, to);
+    }
+
+    // casts the rays through the region on the workers, or through the level on the calling thread without one
+    private static List<BlockPos> explode(ServerExplosion explosion, ServerLevel level, @Nullable PathNavigationRegion region, Vec3 center, float radius, ExplosionDamageCalculator damageCalculator, LongSet destroyed) {
+        float[] strengths = drawStrengths(level, radius);
+        long[][] hits = new long[strengths.length][];
+        float[][] hitStrengths = new float[strengths.length][];
+        if (region != null) {
+            pool().invoke(new Cast(explosion, level, region, damageCalculator, center, destroyed, strengths, hits, hitStrengths, 0, strengths.length));
+        } else {
+            LongArrayList rayHits = new LongArrayList();
+            FloatArrayList rayStrengths = new FloatArrayList();
+            for (int ray = 0; ray < strengths.length; ray++) {
+                rayHits.clear();
+                rayStrengths.clear();
+                cast(explosion, level, level, damageCalculator, center, destroyed, ray, strengths[ray], rayHits, rayStrengths);
+                hits[ray] = rayHits.toLongArray();
+                hitStrengths[ray] = rayStrengths.toFloatArray();
+            }
+        }
+        return decide(explosion, level, damageCalculator, destroyed, hits, hitStrengths);
+    }
+
+    private static float[] drawStrengths(ServerLevel level, float radius) {
+        float[] strengths = new float[RAYS.length / 3];
+        for (int i = 0; i < strengths.length; i++) {
+            strengths[i] = radius * (0.7F + level.random.nextFloat() * 0.6F);
+        }
+        return strengths;
+    }
+
+    // the ray loop of ServerExplosion, leaving the decision whether a block explodes to the caller
+    private static void cast(ServerExplosion explosion, ServerLevel level, BlockGetter blocks, ExplosionDamageCalculator damageCalculator, Vec3 center, LongSet destroyed, int ray, float strength, LongArrayList rayHits, FloatArrayList rayStrengths) {
+        double dx = RAYS[ray * 3];
+        double dy = RAYS[ray * 3 + 1];
+        double dz = RAYS[ray * 3 + 2];
+        double x = center.x;
+        double y = center.y;
+        double z = center.z;
+        for (; strength > 0.0F; strength -= 0.22500001F) {
+            BlockPos pos = BlockPos.containing(x, y, z);
+            if (!level.isInWorldBounds(pos)) {
+                break;
+            }
+            long packed = pos.asLong();
+            BlockState state = destroyed.contains(packed) ? Blocks.AIR.defaultBlockState() : blocks.getBlockState(pos);
+            FluidState fluid = state.getFluidState();
+            Optional<Float> resistance = damageCalculator.getBlockExplosionResistance(explosion, blocks, pos, state, fluid);
+            if (resistance.isPresent()) {
+                strength -= (resistance.get() + 0.3F) * 0.3F;
+            }
+            // a block the ray is still in was reached with more strength the step before
+            if (strength > 0.0F && (rayHits.isEmpty() || rayHits.getLong(rayHits.size() - 1) != packed)) {
+                rayHits.add(packed);
+                rayStrengths.add(strength);
+            }
+            x += dx * 0.3F;
+            y += dy * 0.3F;
+            z += dz * 0.3F;
+        }
+    }
+
+    // decides the blocks in ray order, each once with the strength of the first ray that reached it like the block
+    // cache of ServerExplosion does
+    private static List<BlockPos> decide(ServerExplosion explosion, ServerLevel level, ExplosionDamageCalculator damageCalculator, LongSet destroyed, long[][] hits, float[][] hitStrengths) {
+        List<BlockPos> list = new ObjectArrayList<>();
+        LongOpenHashSet decided = new LongOpenHashSet();
+        for (int ray = 0; ray < hits.length; ray++) {
+            long[] rayHits = hits[ray];
+            for (int i = 0; i < rayHits.length; i++) {
+                if (!decided.add(rayHits[i])) {
+                    continue;
+                }
+                BlockPos pos = BlockPos.of(rayHits[i]);
+                BlockState state = destroyed.contains(rayHits[i]) ? Blocks.AIR.defaultBlockState() : level.getBlockState(pos);
+                if (!damageCalculator.shouldBlockExplode(explosion, level, pos, state, hitStrengths[ray][i])) {
+                    continue;
+                }
+                list.add(pos);
+                // Paper - prevent headless pistons from forming
+                if (state.getBlock() == Blocks.MOVING_PISTON && !io.papermc.paper.configuration.GlobalConfiguration.get().unsupportedSettings.allowHeadlessPistons) {
+                    BlockEntity extension = level.getBlockEntity(pos);
+                    if (extension instanceof PistonMovingBlockEntity blockEntity && blockEntity.isSourcePiston()) {
+                        BlockPos base = pos.relative(state.getValue(PistonHeadBlock.FACING).getOpposite());
+                        if (decided.add(base.asLong())) {
+                            list.add(base);
+                        }
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
+    private static ForkJoinPool pool() {
+        int threads = Math.max(1, PurpurConfig.parallelExplosionRaysThreads);
+        if (pool == null || poolThreads != threads) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            AtomicInteger count = new AtomicInteger();
+            pool = new ForkJoinPool(threads, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("Purpur Explosion Rays #" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }, (thread, throwable) -> Bukkit.getLogger().log(Level.SEVERE, "Uncaught exception in " + thread.getName(), throwable), false);
+            poolThreads = threads;
+        }
+        return pool;
+    }
+
+    private static final class Cast extends RecursiveAction {
+        private final ServerExplosion explosion;
+        private final ServerLevel level;
+        private final PathNavigationRegion region;
+        private final ExplosionDamageCalculator damageCalculator;
+        private final Vec3 center;
+        private final LongSet destroyed;
+        private final float[] strengths;
+        private final long[][] hits;
+        private final float[][] hitStrengths;
+        private final int start;
+        private final int end;
+
+        private Cast(ServerExplosion explosion, ServerLevel level, PathNavigationRegion region, ExplosionDamageCalculator damageCalculator, Vec3 center, LongSet destroyed, float[] strengths, long[][] hits, float[][] hitStrengths, int start, int end) {
+            this.explosion = explosion;
+            this.level = level;
+            this.region = region;
+            this.damageCalculator = damageCalculator;
+            this.center = center;
+            this.destroyed = destroyed;
+            this.strengths = strengths;
+            this.hits = hits;
+            this.hitStrengths = hitStrengths;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > BATCH) {
+                int middle = (this.start + this.end) >>> 1;
+                invokeAll(
+                    new Cast(this.explosion, this.level, this.region, this.damageCalculator, this.center, this.destroyed, this.strengths, this.hits, this.hitStrengths, this.start, middle),
+                    new Cast(this.explosion, this.level, this.region, this.damageCalculator, this.center, this.destroyed, this.strengths, this.hits, this.hitStrengths, middle, this.end)
+                );
+                return;
+            }
+            LongArrayList rayHits = new LongArrayList();
+            FloatArrayList rayStrengths = new FloatArrayList();
+            for (int ray = this.start; ray < this.end; ray++) {
+                rayHits.clear();
+                rayStrengths.clear();
+                cast(this.explosion, this.level, this.region, this.damageCalculator, this.center, this.destroyed, ray, this.strengths[ray], rayHits, rayStrengths);
+                this.hits[ray] = rayHits.toLongArray();
+                this.hitStrengths[ray] = rayStrengths.toFloatArray();
+            }
+        }
+    }
+}
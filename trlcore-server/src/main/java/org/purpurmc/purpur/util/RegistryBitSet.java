@@ -0,0 +1,105 @@
+package org.purpurmc.purpur.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import net.minecraft.core.Registry;
+import net.minecraft.resources.Identifier;
+
+/**
+ * An immutable set of registry entries, stored as a bit set over their numeric registry ids. Lookups are a single
+ * id lookup and a bit test, no matter how many entries the set holds.
+ */
+public final class RegistryBitSet<T> {
+    private static final long[] NO_WORDS = new long[0];
+
+    private final Registry<T> registry;
+    private final long[] words;
+    private final int size;
+
+    private RegistryBitSet(Registry<T> registry, long[] words, int size) {
+        this.registry = registry;
+        this.words = words;
+        this.size = size;
+    }
+
+    public static <T> RegistryBitSet<T> empty(Registry<T> registry) {
+        return new RegistryBitSet<>(registry, NO_WORDS, 0);
+    }
+
+    /**
+     * Resolves a list of registry keys. {@code *} adds every entry of the registry. Entries rejected by the filter
+     * are skipped silently, keys that are malformed or not in the registry are passed to {@code unknown}.
+     */
+    public static <T> RegistryBitSet<T> parse(Registry<T> registry, Collection<?> keys, Predicate<T> filter, Consumer<String> unknown) {
+        long[] words = new long[(registry.size() + 63) >>> 6];
+        for (Object entry : keys) {
+            String key = String.valueOf(entry);
+            if (key.equals("*")) {
+                for (T value : registry) {
+                    if (filter.test(value)) {
+                        set(words, registry.getId(value));
+                    }
+                }
+                continue;
+            }
+            Identifier identifier = Identifier.tryParse(key);
+            T value = identifier == null ? null : registry.getOptional(identifier).orElse(null);
+            if (value == null) {
+                unknown.accept(key);
+            } else if (filter.test(value)) {
+                set(words, registry.getId(value));
+            }
+        }
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size == 0 ? empty(registry) : new RegistryBitSet<>(registry, words, size);
+    }
+
+    private static void set(long[] words, int id) {
+        if (id >= 0 && id >>> 6 < words.length) {
+            words[id >>> 6] |= 1L << id;
+        }
+    }
+
+    public boolean contains(T value) {
+        if (this.size == 0) {
+            return false;
+        }
+        int id = this.registry.getId(value);
+        return id >= 0 && id >>> 6 < this.words.length && (this.words[id >>> 6] & 1L << id) != 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the registry keys of the entries in this set, in registry id order.
+     */
+    public List<String> keys() {
+        List<String> keys = new ArrayList<>(this.size);
+        for (int i = 0; i < this.words.length; i++) {
+            long word = this.words[i];
+            while (word != 0) {
+                int id = i << 6 | Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                keys.add(String.valueOf(this.registry.getKey(this.registry.byId(id))));
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return this.keys().toString();
+    }
+}
@@ -0,0 +1,139 @@
+package org.purpurmc.purpur.entity;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the knockback of a merged TNT's single explosion adds up to what its explosions going off one after the
+ * other deal, for the entities it pushes and the knockback sent to the players it hits.
+ */
+public class TntMergerTest {
+    private static final double EPSILON = 1.0E-9D;
+    private static final int ENTITIES = 16;
+
+    private final Map<Entity, Vec3> motion = new IdentityHashMap<>();
+    private final Map<Entity, Vec3> knockback = new IdentityHashMap<>();
+    private final List<Entity> entities = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+    private ServerLevel level;
+    private Entity removed;
+
+    @BeforeAll
+    public static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        Random random = new Random(42L);
+        for (int i = 0; i < ENTITIES; i++) {
+            Entity entity = i % 4 == 0 ? this.entity(Player.class, false) : this.entity(Entity.class, false);
+            this.motion.put(entity, new Vec3(random.nextGaussian() * 0.1, random.nextGaussian() * 0.1, random.nextGaussian() * 0.1));
+            this.knockback.put(entity, new Vec3(random.nextGaussian(), random.nextDouble(), random.nextGaussian()));
+            this.entities.add(entity);
+            if (entity instanceof Player player) {
+                this.players.add(player);
+            }
+        }
+        // the merged TNT itself, removed before it explodes
+        this.removed = this.entity(Entity.class, true);
+        this.motion.put(this.removed, new Vec3(0.0, -0.04, 0.0));
+        this.entities.add(this.removed);
+
+        this.level = Mockito.mock(ServerLevel.class, Mockito.withSettings().stubOnly());
+        Mockito.when(this.level.getEntities(ArgumentMatchers.<Entity>isNull(), ArgumentMatchers.any(AABB.class))).thenReturn(this.entities);
+    }
+
+    @Test
+    public void mergedKnockbackMatchesSeparateExplosions() {
+        for (int count = 2; count <= 8; count++) {
+            Map<Entity, Vec3> start = new IdentityHashMap<>(this.motion);
+
+            // one explosion after the other, every one pushing and sending its knockback to the players
+            Map<Player, Vec3> sent = new IdentityHashMap<>();
+            for (int i = 0; i < count; i++) {
+                for (Map.Entry<Player, Vec3> entry : this.explode().entrySet()) {
+                    sent.merge(entry.getKey(), entry.getValue(), Vec3::add);
+                }
+            }
+            Map<Entity, Vec3> separate = new IdentityHashMap<>(this.motion);
+
+            // a single explosion for the merged TNT
+            this.motion.putAll(start);
+            Map<Entity, Vec3> motionBefore = TntMerger.motionBefore(this.level, Vec3.ZERO, 4.0F);
+            Map<Player, Vec3> hitPlayers = this.explode();
+            TntMerger.repeatKnockback(motionBefore, hitPlayers, count);
+
+            for (Entity entity : this.entities) {
+                assertClose(separate.get(entity), this.motion.get(entity), count + " explosions");
+            }
+            assertEquals(sent.keySet(), hitPlayers.keySet());
+            for (Player player : this.players) {
+                assertClose(sent.get(player), hitPlayers.get(player), count + " explosions sent to a player");
+            }
+            this.motion.putAll(start);
+        }
+    }
+
+    // what ServerExplosion#hurtEntities does to the motion of the entities, leaving the merged TNT out
+    private Map<Player, Vec3> explode() {
+        Map<Player, Vec3> hitPlayers = new IdentityHashMap<>();
+        for (Entity entity : this.entities) {
+            if (entity == this.removed) {
+                continue;
+            }
+            Vec3 knockback = this.knockback.get(entity);
+            entity.push(knockback);
+            if (entity instanceof Player player) {
+                hitPlayers.put(player, knockback);
+            }
+        }
+        return hitPlayers;
+    }
+
+    private static void assertClose(Vec3 expected, Vec3 actual, String message) {
+        assertEquals(expected.x, actual.x, EPSILON, message);
+        assertEquals(expected.y, actual.y, EPSILON, message);
+        assertEquals(expected.z, actual.z, EPSILON, message);
+    }
+
+    // keeps the motion in the test, mocks skip the constructor
+    private <T extends Entity> T entity(Class<T> type, boolean removed) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly().defaultAnswer(invocation -> {
+            Entity entity = (Entity) invocation.getMock();
+            Object[] args = invocation.getArguments();
+            return switch (invocation.getMethod().getName()) {
+                case "getDeltaMovement" -> this.motion.get(entity);
+                case "setDeltaMovement" -> {
+                    this.motion.put(entity, args.length == 1 ? (Vec3) args[0] : new Vec3((double) args[0], (double) args[1], (double) args[2]));
+                    yield null;
+                }
+                case "push" -> {
+                    Vec3 push = args[0] instanceof Vec3 vec ? vec : new Vec3((double) args[0], (double) args[1], (double) args[2]);
+                    this.motion.put(entity, this.motion.get(entity).add(push));
+                    yield null;
+                }
+                case "isRemoved" -> removed;
+                default -> Mockito.RETURNS_DEFAULTS.answer(invocation);
+            };
+        }));
+    }
+}
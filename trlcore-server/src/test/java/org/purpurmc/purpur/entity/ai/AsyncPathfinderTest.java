@@ -0,0 +1,278 @@
+package org.purpurmc.purpur.entity.ai;
+
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.PathNavigationRegion;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.SlabBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.SlabType;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ChunkSource;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.pathfinder.Path;
+import net.minecraft.world.level.pathfinder.PathFinder;
+import net.minecraft.world.level.pathfinder.PathType;
+import net.minecraft.world.level.pathfinder.WalkNodeEvaluator;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that searching a path in a snapshot on another thread finds the same path as searching the live region on
+ * the calling thread, over generated terrain with walls, fences, slabs, water and drops.
+ */
+public class AsyncPathfinderTest {
+    private static final int WORLD_CHUNKS = 8;
+    private static final int MIN_Y = 0;
+    private static final int HEIGHT = 64;
+    private static final int FLOOR = 8;
+    private static final float FOLLOW_RANGE = 32.0F;
+    // what the ground navigation pads the region with
+    private static final int REGION_OFFSET = 8;
+    private static final int SEARCHES = 200;
+
+    private final BlockState[] world = new BlockState[WORLD_CHUNKS * 16 * WORLD_CHUNKS * 16 * HEIGHT];
+    private final LevelChunk[] chunks = new LevelChunk[WORLD_CHUNKS * WORLD_CHUNKS];
+    private Level level;
+    private ExecutorService worker;
+
+    @BeforeAll
+    public static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        this.worker = Executors.newSingleThreadExecutor();
+        this.generate(new Random(42L));
+        this.level = Mockito.mock(Level.class, this.levelAnswer());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.worker.shutdownNow();
+    }
+
+    @Test
+    public void snapshotFindsTheSamePaths() throws Exception {
+        Random random = new Random(1337L);
+        int found = 0;
+        for (int i = 0; i < SEARCHES; i++) {
+            int size = WORLD_CHUNKS * 16;
+            BlockPos start = this.surface(16 + random.nextInt(size - 32), 16 + random.nextInt(size - 32));
+            BlockPos target = this.surface(start.getX() + random.nextInt(49) - 24, start.getZ() + random.nextInt(49) - 24);
+            Mob mob = this.mob(start);
+            int radius = (int) (FOLLOW_RANGE + REGION_OFFSET);
+            int searchRadius = AsyncPathfinder.searchRadius(radius, FOLLOW_RANGE);
+
+            Path sync = search(new PathNavigationRegion(this.level, start.offset(-radius, -radius, -radius), start.offset(radius, radius, radius)), mob, target);
+            PathRegionSnapshot snapshot = new PathRegionSnapshot(this.level, mob, start.offset(-searchRadius, -searchRadius, -searchRadius), start.offset(searchRadius, searchRadius, searchRadius));
+            Path async = this.worker.submit(() -> search(snapshot, mob, target)).get();
+
+            String message = "path from " + start + " to " + target;
+            if (sync == null || async == null) {
+                assertEquals(sync, async, message);
+                continue;
+            }
+            assertTrue(sync.sameAs(async), message);
+            assertEquals(sync.getTarget(), async.getTarget(), message);
+            assertEquals(sync.canReach(), async.canReach(), message);
+            found++;
+        }
+        assertTrue(found > SEARCHES / 2, "too few paths found to compare: " + found);
+    }
+
+    private static Path search(PathNavigationRegion region, Mob mob, BlockPos target) {
+        return new PathFinder(new WalkNodeEvaluator(), (int) (FOLLOW_RANGE * 16.0F)).findPath(region, mob, Set.of(target), FOLLOW_RANGE, 1, 1.0F);
+    }
+
+    private void generate(Random random) {
+        int size = WORLD_CHUNKS * 16;
+        BlockState bottomSlab = Blocks.STONE_SLAB.defaultBlockState().setValue(SlabBlock.TYPE, SlabType.BOTTOM);
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                int floor = random.nextInt(24) == 0 ? FLOOR - 2 - random.nextInt(4) : FLOOR;
+                for (int y = MIN_Y; y < MIN_Y + HEIGHT; y++) {
+                    this.world[index(x, y, z)] = y < floor ? Blocks.STONE.defaultBlockState() : Blocks.AIR.defaultBlockState();
+                }
+                int roll = random.nextInt(100);
+                if (floor != FLOOR) {
+                    continue;
+                }
+                if (roll < 10) {
+                    this.world[index(x, FLOOR, z)] = Blocks.STONE.defaultBlockState();
+                    this.world[index(x, FLOOR + 1, z)] = Blocks.STONE.defaultBlockState();
+                } else if (roll < 14) {
+                    this.world[index(x, FLOOR, z)] = Blocks.OAK_FENCE.defaultBlockState();
+                } else if (roll < 20) {
+                    this.world[index(x, FLOOR, z)] = bottomSlab;
+                } else if (roll < 26) {
+                    this.world[index(x, FLOOR - 1, z)] = Blocks.WATER.defaultBlockState();
+                }
+            }
+        }
+        for (int chunkX = 0; chunkX < WORLD_CHUNKS; chunkX++) {
+            for (int chunkZ = 0; chunkZ < WORLD_CHUNKS; chunkZ++) {
+                this.chunks[chunkZ * WORLD_CHUNKS + chunkX] = this.chunk(chunkX, chunkZ);
+            }
+        }
+    }
+
+    private BlockPos surface(int x, int z) {
+        int size = WORLD_CHUNKS * 16;
+        x = Math.clamp(x, 0, size - 1);
+        z = Math.clamp(z, 0, size - 1);
+        int y = MIN_Y + HEIGHT - 1;
+        while (y > MIN_Y && this.world[index(x, y - 1, z)].isAir()) {
+            y--;
+        }
+        return new BlockPos(x, y, z);
+    }
+
+    private static int index(int x, int y, int z) {
+        return ((y - MIN_Y) * WORLD_CHUNKS * 16 + z) * WORLD_CHUNKS * 16 + x;
+    }
+
+    private BlockState state(int x, int y, int z) {
+        int size = WORLD_CHUNKS * 16;
+        if (x < 0 || x >= size || z < 0 || z >= size) {
+            return Blocks.VOID_AIR.defaultBlockState();
+        }
+        if (y < MIN_Y || y >= MIN_Y + HEIGHT) {
+            return Blocks.AIR.defaultBlockState();
+        }
+        return this.world[index(x, y, z)];
+    }
+
+    private BlockState state(Object[] args) {
+        if (args.length == 1 && args[0] instanceof BlockPos pos) {
+            return this.state(pos.getX(), pos.getY(), pos.getZ());
+        }
+        return this.state((int) args[0], (int) args[1], (int) args[2]);
+    }
+
+    private Mob mob(BlockPos start) {
+        Mob mob = Mockito.mock(Mob.class);
+        Vec3 position = Vec3.atBottomCenterOf(start);
+        when(mob.level()).thenReturn(this.level);
+        when(mob.position()).thenReturn(position);
+        when(mob.getX()).thenReturn(position.x);
+        when(mob.getY()).thenReturn(position.y);
+        when(mob.getZ()).thenReturn(position.z);
+        when(mob.getBlockX()).thenReturn(start.getX());
+        when(mob.getBlockY()).thenReturn(start.getY());
+        when(mob.getBlockZ()).thenReturn(start.getZ());
+        when(mob.blockPosition()).thenReturn(start);
+        when(mob.getBbWidth()).thenReturn(0.6F);
+        when(mob.getBbHeight()).thenReturn(1.95F);
+        when(mob.getBoundingBox()).thenReturn(AABB.ofSize(position.add(0.0, 0.975, 0.0), 0.6, 1.95, 0.6));
+        when(mob.onGround()).thenReturn(true);
+        when(mob.maxUpStep()).thenReturn(0.6F);
+        when(mob.getMaxFallDistance()).thenReturn(3);
+        when(mob.getMainHandItem()).thenReturn(ItemStack.EMPTY);
+        when(mob.getPathfindingMalus(any())).thenAnswer(invocation -> invocation.<PathType>getArgument(0).getMalus());
+        return mob;
+    }
+
+    // routes chunk lookups to the generated chunks, everything else the search reads off the level is stubbed here
+    private Answer<Object> levelAnswer() {
+        WorldBorder border = new WorldBorder();
+        ChunkSource[] chunkSource = new ChunkSource[1];
+        Answer<Object> answer = invocation -> {
+            Method method = invocation.getMethod();
+            Object[] args = invocation.getArguments();
+            if (ChunkAccess.class.isAssignableFrom(method.getReturnType()) && args.length >= 2 && args[0] instanceof Integer x && args[1] instanceof Integer z) {
+                return x >= 0 && x < WORLD_CHUNKS && z >= 0 && z < WORLD_CHUNKS ? this.chunks[z * WORLD_CHUNKS + x] : null;
+            }
+            if (method.getReturnType() == ChunkSource.class) {
+                return chunkSource[0];
+            }
+            if (method.getReturnType() == WorldBorder.class) {
+                return border;
+            }
+            Object height = height(method, args);
+            return height != null ? height : Mockito.RETURNS_DEFAULTS.answer(invocation);
+        };
+        chunkSource[0] = Mockito.mock(ChunkSource.class, answer);
+        return answer;
+    }
+
+    private LevelChunk chunk(int chunkX, int chunkZ) {
+        LevelChunkSection[] sections = new LevelChunkSection[HEIGHT >> 4];
+        for (int i = 0; i < sections.length; i++) {
+            int minX = chunkX << 4;
+            int minY = MIN_Y + (i << 4);
+            int minZ = chunkZ << 4;
+            @SuppressWarnings("unchecked")
+            PalettedContainer<BlockState> states = Mockito.mock(PalettedContainer.class);
+            when(states.copy()).thenReturn(states);
+            when(states.get(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> this.state(minX + invocation.<Integer>getArgument(0), minY + invocation.<Integer>getArgument(1), minZ + invocation.<Integer>getArgument(2)));
+            LevelChunkSection section = Mockito.mock(LevelChunkSection.class);
+            when(section.hasOnlyAir()).thenReturn(false);
+            when(section.getStates()).thenReturn(states);
+            sections[i] = section;
+        }
+        ChunkPos pos = new ChunkPos(chunkX, chunkZ);
+        return Mockito.mock(LevelChunk.class, invocation -> {
+            Method method = invocation.getMethod();
+            Object[] args = invocation.getArguments();
+            String name = method.getName();
+            if (name.equals("getSections")) {
+                return sections;
+            }
+            if (name.equals("getPos")) {
+                return pos;
+            }
+            if (name.startsWith("getBlockState") && (args.length == 1 || args.length == 3)) {
+                return this.state(args);
+            }
+            if (name.startsWith("getFluid") && (args.length == 1 || args.length == 3)) {
+                return this.state(args).getFluidState();
+            }
+            Object height = height(method, args);
+            return height != null ? height : Mockito.RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+
+    private static Object height(Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "getMinY" -> MIN_Y;
+            case "getHeight" -> HEIGHT;
+            case "getMaxY" -> MIN_Y + HEIGHT - 1;
+            case "getMinSectionY" -> MIN_Y >> 4;
+            case "getMaxSectionY" -> (MIN_Y + HEIGHT - 1) >> 4;
+            case "getSectionsCount" -> HEIGHT >> 4;
+            case "isOutsideBuildHeight" -> {
+                int y = args[0] instanceof BlockPos pos ? pos.getY() : (int) args[0];
+                yield y < MIN_Y || y >= MIN_Y + HEIGHT;
+            }
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package org.purpurmc.purpur.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the player mob counts handed out by the async spawn state match counting synchronously,
+ * with mobs spawning on the main thread while the worker counts the copied entity list. The main thread side goes
+ * through the same snapshot and hand out {@link AsyncSpawnState#tick} uses, with players standing in for the
+ * nearby players lookup.
+ */
+public class AsyncSpawnStateTest {
+    private static final int CATEGORIES = 8;
+    private static final int WORLD_CHUNKS = 24;
+    private static final int VIEW_DISTANCE = 3;
+    private static final int PLAYERS = 16;
+    private static final int ROUNDS = 500;
+
+    private ExecutorService worker;
+
+    @BeforeEach
+    public void setUp() {
+        this.worker = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.worker.shutdownNow();
+    }
+
+    @Test
+    public void testCountsMatchSynchronousWithSpawns() throws Exception {
+        this.run(new Random(1234L), false);
+    }
+
+    @Test
+    public void testCountsNeverUnderSynchronousWithDespawns() throws Exception {
+        this.run(new Random(5678L), true);
+    }
+
+    private void run(Random random, boolean despawn) throws Exception {
+        List<Mob> entities = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            entities.add(Mob.random(random));
+        }
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = new Player(random.nextInt(WORLD_CHUNKS), random.nextInt(WORLD_CHUNKS));
+            player.mobCounts = countSynchronously(player, entities);
+            players.add(player);
+        }
+        Map<Player, int[]> baseline = new IdentityHashMap<>();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            // main thread: remember the counts and copy the entities before handing them to the worker
+            AsyncSpawnState.snapshot(players, player -> player.mobCounts, baseline);
+            List<Mob> copy = List.copyOf(entities);
+            Future<Long2ObjectMap<int[]>> pending = this.worker.submit(() -> {
+                Long2ObjectOpenHashMap<int[]> countsByChunk = new Long2ObjectOpenHashMap<>();
+                for (Mob mob : copy) {
+                    AsyncSpawnState.count(countsByChunk, mob.chunkKey(), mob.category, CATEGORIES);
+                }
+                return countsByChunk;
+            });
+
+            // main thread keeps spawning while the worker counts, the spawner adds to the players in range
+            int spawns = random.nextInt(20);
+            for (int i = 0; i < spawns; i++) {
+                Mob mob = Mob.random(random);
+                entities.add(mob);
+                for (Player player : players) {
+                    if (player.inRange(mob.chunkX, mob.chunkZ)) {
+                        player.mobCounts[mob.category]++;
+                    }
+                }
+            }
+            if (despawn) {
+                int despawns = random.nextInt(20);
+                for (int i = 0; i < despawns && !entities.isEmpty(); i++) {
+                    entities.remove(random.nextInt(entities.size()));
+                }
+            }
+
+            // main thread: hand the result to the players
+            AsyncSpawnState.handOut(players, player -> player.mobCounts, baseline, pending.get(), (chunkX, chunkZ, action) -> {
+                for (Player player : players) {
+                    if (player.inRange(chunkX, chunkZ)) {
+                        action.accept(player);
+                    }
+                }
+            });
+
+            for (Player player : players) {
+                int[] expected = countSynchronously(player, entities);
+                if (despawn) {
+                    // mobs that despawned after the copy still count until the next state, never fewer
+                    for (int category = 0; category < CATEGORIES; category++) {
+                        assertTrue(player.mobCounts[category] >= expected[category], "round " + round + " category " + category);
+                    }
+                } else {
+                    assertArrayEquals(expected, player.mobCounts, "round " + round);
+                }
+            }
+        }
+    }
+
+    private static int[] countSynchronously(Player player, List<Mob> entities) {
+        int[] counts = new int[CATEGORIES];
+        for (Mob mob : entities) {
+            if (player.inRange(mob.chunkX, mob.chunkZ)) {
+                counts[mob.category]++;
+            }
+        }
+        return counts;
+    }
+
+    private record Mob(int chunkX, int chunkZ, int category) {
+        static Mob random(Random random) {
+            return new Mob(random.nextInt(WORLD_CHUNKS), random.nextInt(WORLD_CHUNKS), random.nextInt(CATEGORIES));
+        }
+
+        long chunkKey() {
+            return ((long) this.chunkZ << 32) | (this.chunkX & 0xFFFFFFFFL);
+        }
+    }
+
+    private static final class Player {
+        private final int chunkX;
+        private final int chunkZ;
+        private int[] mobCounts;
+
+        private Player(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        boolean inRange(int chunkX, int chunkZ) {
+            return Math.abs(chunkX - this.chunkX) <= VIEW_DISTANCE && Math.abs(chunkZ - this.chunkZ) <= VIEW_DISTANCE;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package org.purpurmc.purpur.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Explosion;
+import net.minecraft.world.level.ExplosionDamageCalculator;
+import net.minecraft.world.level.ServerExplosion;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.phys.Vec3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.purpurmc.purpur.PurpurConfig;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks that casting the rays of an explosion on several threads destroys the same blocks in the same order as
+ * {@link ParallelExplosionRays#calculateSerial}, the serial ray loop {@link ServerExplosion} falls back to, for fixed
+ * seeds over generated terrain, and that merged TNT destroys the same blocks as its explosions going off one after
+ * the other.
+ */
+public class ParallelExplosionRaysTest {
+    private static final int WORLD_CHUNKS = 8;
+    private static final int MIN_Y = 0;
+    private static final int HEIGHT = 64;
+    private static final int EXPLOSIONS = 32;
+
+    private final BlockState[] world = new BlockState[WORLD_CHUNKS * 16 * WORLD_CHUNKS * 16 * HEIGHT];
+    private final LevelChunk[] chunks = new LevelChunk[WORLD_CHUNKS * WORLD_CHUNKS];
+    private final Map<BlockPos, Integer> decisions = new HashMap<>();
+    private ServerLevel level;
+    private ServerExplosion explosion;
+    private ExplosionDamageCalculator damageCalculator;
+    private int threads;
+    private boolean enabled;
+
+    @BeforeAll
+    public static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        this.threads = PurpurConfig.parallelExplosionRaysThreads;
+        this.enabled = PurpurConfig.parallelExplosionRays;
+        PurpurConfig.parallelExplosionRaysThreads = 4;
+        this.generate(new Random(42L));
+        this.level = Mockito.mock(ServerLevel.class, Mockito.withSettings().stubOnly().defaultAnswer(this.levelAnswer()));
+        this.explosion = Mockito.mock(ServerExplosion.class, Mockito.withSettings().stubOnly());
+        Mockito.when(this.explosion.getBlockInteraction()).thenReturn(Explosion.BlockInteraction.DESTROY);
+        Thread main = Thread.currentThread();
+        this.damageCalculator = new ExplosionDamageCalculator() {
+            @Override
+            public boolean shouldBlockExplode(Explosion explosion, BlockGetter reader, BlockPos pos, BlockState state, float power) {
+                assertSame(main, Thread.currentThread(), "blocks are decided on the main thread");
+                ParallelExplosionRaysTest.this.decisions.merge(pos, 1, Integer::sum);
+                // depends on the strength, so deciding with another ray's strength shows up
+                return !state.is(Blocks.DIRT) || power > 2.0F;
+            }
+        };
+    }
+
+    @AfterEach
+    public void tearDown() {
+        PurpurConfig.parallelExplosionRaysThreads = this.threads;
+        PurpurConfig.parallelExplosionRays = this.enabled;
+    }
+
+    @Test
+    public void parallelMatchesSerial() throws ReflectiveOperationException {
+        Random random = new Random(1337L);
+        for (int i = 0; i < EXPLOSIONS; i++) {
+            Vec3 center = new Vec3(48 + random.nextDouble() * 32, 24 + random.nextDouble() * 16, 48 + random.nextDouble() * 32);
+            float radius = 6.0F + random.nextFloat() * 10.0F;
+            long seed = random.nextLong();
+
+            this.setRandom(RandomSource.create(seed));
+            this.decisions.clear();
+            List<BlockPos> serial = ParallelExplosionRays.calculateSerial(this.explosion, this.level, center, radius, this.damageCalculator);
+            long serialNext = this.level.random.nextLong();
+
+            this.setRandom(RandomSource.create(seed));
+            this.decisions.clear();
+            List<BlockPos> parallel = ParallelExplosionRays.calculateExplodedPositions(this.explosion, this.level, center, radius, this.damageCalculator);
+            long parallelNext = this.level.random.nextLong();
+
+            String message = "explosion of " + radius + " at " + center;
+            assertEquals(serial, parallel, message);
+            assertEquals(serialNext, parallelNext, message + " drew a different number of ray strengths");
+            assertFalse(this.decisions.values().stream().anyMatch(count -> count > 1), message + " decided a block more than once");
+            assertFalse(serial.isEmpty(), message + " destroyed nothing");
+        }
+    }
+
+    @Test
+    public void mergedMatchesSeparateExplosions() throws ReflectiveOperationException {
+        Random random = new Random(4242L);
+        BlockState[] original = this.world.clone();
+        int deeper = 0;
+        for (int i = 0; i < EXPLOSIONS; i++) {
+            Vec3 center = new Vec3(48 + random.nextDouble() * 32, 24 + random.nextDouble() * 16, 48 + random.nextDouble() * 32);
+            float radius = 4.0F + random.nextFloat() * 8.0F;
+            int count = 2 + random.nextInt(7);
+            long seed = random.nextLong();
+            String message = count + " explosions of " + radius + " at " + center;
+
+            // one explosion after the other, each destroying its blocks before the next one goes off
+            this.setRandom(RandomSource.create(seed));
+            List<BlockPos> separate = new ArrayList<>();
+            Set<BlockPos> destroyed = new HashSet<>();
+            for (int j = 0; j < count; j++) {
+                for (BlockPos pos : ParallelExplosionRays.calculateSerial(this.explosion, this.level, center, radius, this.damageCalculator)) {
+                    if (destroyed.add(pos)) {
+                        separate.add(pos);
+                    }
+                    this.world[index(pos.getX(), pos.getY(), pos.getZ())] = Blocks.AIR.defaultBlockState();
+                }
+            }
+            long separateNext = this.level.random.nextLong();
+            System.arraycopy(original, 0, this.world, 0, original.length);
+
+            for (boolean parallel : new boolean[] {false, true}) {
+                PurpurConfig.parallelExplosionRays = parallel;
+                this.setRandom(RandomSource.create(seed));
+                List<BlockPos> merged = ParallelExplosionRays.calculateMerged(this.explosion, this.level, center, radius, this.damageCalculator, count);
+                assertEquals(separate, merged, message + (parallel ? " on several threads" : ""));
+                assertEquals(separateNext, this.level.random.nextLong(), message + " drew a different number of ray strengths");
+            }
+            this.setRandom(RandomSource.create(seed));
+            if (ParallelExplosionRays.calculateSerial(this.explosion, this.level, center, radius, this.damageCalculator).size() < separate.size()) {
+                deeper++;
+            }
+        }
+        // later explosions reach blocks the first one couldn't, or this would only check a single explosion
+        assertNotEquals(0, deeper);
+    }
+
+    @Test
+    public void unloadedChunksAreLeftToTheSerialPath() throws ReflectiveOperationException {
+        long seed = 7L;
+        this.setRandom(RandomSource.create(seed));
+        // close enough to the edge of the generated chunks for the rays to reach past it
+        List<BlockPos> parallel = ParallelExplosionRays.calculateExplodedPositions(this.explosion, this.level, new Vec3(8.5, 32.5, 64.5), 8.0F, this.damageCalculator);
+        assertNull(parallel);
+        assertEquals(RandomSource.create(seed).nextLong(), this.level.random.nextLong(), "no ray strengths are drawn before falling back");
+
+        // the fallback ServerExplosion takes then draws the strengths as if the parallel path was never tried
+        this.setRandom(RandomSource.create(seed));
+        List<BlockPos> serial = ParallelExplosionRays.calculateSerial(this.explosion, this.level, new Vec3(8.5, 32.5, 64.5), 8.0F, this.damageCalculator);
+        assertFalse(serial.isEmpty());
+    }
+
+    private void setRandom(RandomSource random) throws ReflectiveOperationException {
+        // mocks skip the constructor
+        Field field = ServerLevel.class.getField("random");
+        field.setAccessible(true);
+        field.set(this.level, random);
+    }
+
+    private void generate(Random random) {
+        int size = WORLD_CHUNKS * 16;
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                for (int y = MIN_Y; y < MIN_Y + HEIGHT; y++) {
+                    int roll = random.nextInt(100);
+                    BlockState state;
+                    if (roll < 30) {
+                        state = Blocks.STONE.defaultBlockState();
+                    } else if (roll < 45) {
+                        state = Blocks.DIRT.defaultBlockState();
+                    } else if (roll < 48) {
+                        state = Blocks.OBSIDIAN.defaultBlockState();
+                    } else if (roll < 54) {
+                        state = Blocks.WATER.defaultBlockState();
+                    } else {
+                        state = Blocks.AIR.defaultBlockState();
+                    }
+                    this.world[index(x, y, z)] = state;
+                }
+            }
+        }
+        // the chunk column at the lowest x isn't loaded
+        for (int chunkX = 1; chunkX < WORLD_CHUNKS; chunkX++) {
+            for (int chunkZ = 0; chunkZ < WORLD_CHUNKS; chunkZ++) {
+                this.chunks[chunkZ * WORLD_CHUNKS + chunkX] = this.chunk();
+            }
+        }
+    }
+
+    private static int index(int x, int y, int z) {
+        return ((y - MIN_Y) * WORLD_CHUNKS * 16 + z) * WORLD_CHUNKS * 16 + x;
+    }
+
+    private BlockState state(Object[] args) {
+        int x;
+        int y;
+        int z;
+        if (args[0] instanceof BlockPos pos) {
+            x = pos.getX();
+            y = pos.getY();
+            z = pos.getZ();
+        } else {
+            x = (int) args[0];
+            y = (int) args[1];
+            z = (int) args[2];
+        }
+        int size = WORLD_CHUNKS * 16;
+        if (x < 0 || x >= size || z < 0 || z >= size) {
+            return Blocks.VOID_AIR.defaultBlockState();
+        }
+        if (y < MIN_Y || y >= MIN_Y + HEIGHT) {
+            return Blocks.AIR.defaultBlockState();
+        }
+        return this.world[index(x, y, z)];
+    }
+
+    // routes chunk and block lookups to the generated world
+    private Answer<Object> levelAnswer() {
+        return invocation -> {
+            Method method = invocation.getMethod();
+            Object[] args = invocation.getArguments();
+            if (ChunkAccess.class.isAssignableFrom(method.getReturnType()) && args.length >= 2 && args[0] instanceof Integer x && args[1] instanceof Integer z) {
+                return x >= 0 && x < WORLD_CHUNKS && z >= 0 && z < WORLD_CHUNKS ? this.chunks[z * WORLD_CHUNKS + x] : null;
+            }
+            if (method.getName().equals("isInWorldBounds")) {
+                BlockPos pos = (BlockPos) args[0];
+                return pos.getY() >= MIN_Y && pos.getY() < MIN_Y + HEIGHT && Math.abs(pos.getX()) < 30_000_000 && Math.abs(pos.getZ()) < 30_000_000;
+            }
+            Object answer = this.blockAnswer(method, args);
+            return answer != null ? answer : Mockito.RETURNS_DEFAULTS.answer(invocation);
+        };
+    }
+
+    private LevelChunk chunk() {
+        return Mockito.mock(LevelChunk.class, Mockito.withSettings().stubOnly().defaultAnswer(invocation -> {
+            Object answer = this.blockAnswer(invocation.getMethod(), invocation.getArguments());
+            return answer != null ? answer : Mockito.RETURNS_DEFAULTS.answer(invocation);
+        }));
+    }
+
+    private Object blockAnswer(Method method, Object[] args) {
+        String name = method.getName();
+        if (name.startsWith("getBlockState") && (args.length == 1 || args.length == 3)) {
+            return this.state(args);
+        }
+        if (name.startsWith("getFluid") && (args.length == 1 || args.length == 3)) {
+            return this.state(args).getFluidState();
+        }
+        return switch (name) {
+            case "getMinY" -> MIN_Y;
+            case "getHeight" -> HEIGHT;
+            case "getMaxY" -> MIN_Y + HEIGHT - 1;
+            case "getMinSectionY" -> MIN_Y >> 4;
+            case "getMaxSectionY" -> (MIN_Y + HEIGHT - 1) >> 4;
+            case "getSectionsCount" -> HEIGHT >> 4;
+            case "isOutsideBuildHeight" -> {
+                int y = args[0] instanceof BlockPos pos ? pos.getY() : (int) args[0];
+                yield y < MIN_Y || y >= MIN_Y + HEIGHT;
+            }
+            default -> null;
+        };
+    }
+}